@@ -0,0 +1,4 @@
+# The index generated by manifest-index.gradle is loaded by reflection.
+-keep class com.yanzhenjie.permission.generated.ManifestPermissions {
+    public static final java.lang.String[] PERMISSIONS;
+}
@@ -20,20 +20,22 @@ import android.content.Context;
 import android.content.ContextWrapper;
 import android.net.Uri;
 import android.os.Build;
-import android.text.TextUtils;
 
 import androidx.fragment.app.Fragment;
 
-import com.yanzhenjie.permission.checker.DoubleChecker;
-import com.yanzhenjie.permission.checker.PermissionChecker;
+import com.yanzhenjie.permission.checker.CheckerPolicy;
 import com.yanzhenjie.permission.option.Option;
+import com.yanzhenjie.permission.runtime.Runtime;
 import com.yanzhenjie.permission.source.ActivitySource;
 import com.yanzhenjie.permission.source.ContextSource;
 import com.yanzhenjie.permission.source.FragmentSource;
 import com.yanzhenjie.permission.source.Source;
 import com.yanzhenjie.permission.source.XFragmentSource;
+import com.yanzhenjie.permission.task.TaskExecutor;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 /**
@@ -41,12 +43,6 @@ import java.util.List;
  */
 public class AndPermission {
 
-    private static final String ACTION_BRIDGE_SUFFIX = ".andpermission.bridge";
-
-    public static String bridgeAction(Context context, String suffix) {
-        return context.getPackageName() + ACTION_BRIDGE_SUFFIX + (TextUtils.isEmpty(suffix) ? "" : "." + suffix);
-    }
-
     /**
      * With context.
      *
@@ -87,6 +83,16 @@ public class AndPermission {
         return new Boot(new ActivitySource(activity));
     }
 
+    /**
+     * Load the permissions of the manifest on a background thread, it's recommended to call it in
+     * {@link android.app.Application#onCreate()}.
+     *
+     * @param context {@link Context}.
+     */
+    public static void warmUp(Context context) {
+        Runtime.warmUp(context);
+    }
+
     /**
      * Some privileges permanently disabled, may need to set up in the execute.
      *
@@ -199,10 +205,27 @@ public class AndPermission {
         return false;
     }
 
+    private static volatile CheckerPolicy sCheckerPolicy = CheckerPolicy.cached();
+
+    /**
+     * Set how the permissions are verified, by the static checks and by the requests, the default is
+     * {@link CheckerPolicy#cached()}.
+     *
+     * @param policy {@link CheckerPolicy}.
+     */
+    public static void setCheckerPolicy(CheckerPolicy policy) {
+        if (policy == null) {
+            throw new IllegalArgumentException("The policy cannot be null.");
+        }
+        sCheckerPolicy = policy;
+    }
+
     /**
-     * Classic permission checker.
+     * Get the current {@link CheckerPolicy}.
      */
-    private static final PermissionChecker PERMISSION_CHECKER = new DoubleChecker();
+    public static CheckerPolicy getCheckerPolicy() {
+        return sCheckerPolicy;
+    }
 
     /**
      * Judgment already has the target permission.
@@ -212,7 +235,7 @@ public class AndPermission {
      * @return true, other wise is false.
      */
     public static boolean hasPermissions(Context context, String... permissions) {
-        return PERMISSION_CHECKER.hasPermission(context, permissions);
+        return sCheckerPolicy.getChecker().hasPermission(context, permissions);
     }
 
     /**
@@ -245,7 +268,7 @@ public class AndPermission {
      * @return true, other wise is false.
      */
     public static boolean hasPermissions(Activity activity, String... permissions) {
-        return PERMISSION_CHECKER.hasPermission(activity, permissions);
+        return sCheckerPolicy.getChecker().hasPermission(activity, permissions);
     }
 
     /**
@@ -256,11 +279,11 @@ public class AndPermission {
      * @return true, other wise is false.
      */
     public static boolean hasPermissions(Context context, String[]... permissions) {
-        for (String[] permission : permissions) {
-            boolean hasPermission = PERMISSION_CHECKER.hasPermission(context, permission);
-            if (!hasPermission) return false;
+        List<String> list = new ArrayList<>();
+        for (String[] group : permissions) {
+            list.addAll(Arrays.asList(group));
         }
-        return true;
+        return sCheckerPolicy.getChecker().hasPermission(context, list);
     }
 
     /**
@@ -293,11 +316,84 @@ public class AndPermission {
      * @return true, other wise is false.
      */
     public static boolean hasPermissions(Activity activity, String[]... permissions) {
-        for (String[] permission : permissions) {
-            boolean hasPermission = PERMISSION_CHECKER.hasPermission(activity, permission);
-            if (!hasPermission) return false;
+        List<String> list = new ArrayList<>();
+        for (String[] group : permissions) {
+            list.addAll(Arrays.asList(group));
         }
-        return true;
+        return sCheckerPolicy.getChecker().hasPermission(activity, list);
+    }
+
+    /**
+     * Judgment already has the target permission on the background, the callback is invoked on the main thread.
+     *
+     * @param context     {@link Context}.
+     * @param permissions one or more permissions.
+     * @param callback    receives true if all the permissions are granted, other wise is false.
+     * @return the {@link Cancelable} to stop the check, the callback will not be invoked after cancelled.
+     */
+    public static Cancelable checkAsync(final Context context, final String[] permissions,
+        final Action<Boolean> callback) {
+        TaskExecutor<Boolean> task = new TaskExecutor<Boolean>() {
+            @Override
+            protected Boolean doInBackground(Void... voids) {
+                return sCheckerPolicy.getChecker().hasPermission(context, permissions);
+            }
+
+            @Override
+            protected void onFinish(Boolean granted) {
+                callback.onAction(granted);
+            }
+
+            @Override
+            protected void onError(Throwable e) {
+                callback.onAction(false);
+            }
+        };
+        task.execute();
+        return task;
+    }
+
+    /**
+     * Judgment already has the target permission on the background, the callback is invoked on the main thread.
+     *
+     * @param fragment    {@link Fragment}.
+     * @param permissions one or more permissions.
+     * @param callback    receives true if all the permissions are granted, other wise is false.
+     * @return the {@link Cancelable} to stop the check, the callback will not be invoked after cancelled.
+     * @throws IllegalStateException the fragment is not attached to an activity.
+     */
+    public static Cancelable checkAsync(Fragment fragment, String[] permissions, Action<Boolean> callback) {
+        return checkAsync(fragment.requireActivity(), permissions, callback);
+    }
+
+    /**
+     * Judgment already has the target permission on the background, the callback is invoked on the main thread.
+     *
+     * @param fragment    {@link android.app.Fragment}.
+     * @param permissions one or more permissions.
+     * @param callback    receives true if all the permissions are granted, other wise is false.
+     * @return the {@link Cancelable} to stop the check, the callback will not be invoked after cancelled.
+     * @throws IllegalStateException the fragment is not attached to an activity.
+     */
+    public static Cancelable checkAsync(android.app.Fragment fragment, String[] permissions,
+        Action<Boolean> callback) {
+        Activity activity = fragment.getActivity();
+        if (activity == null) {
+            throw new IllegalStateException("The fragment " + fragment + " is not attached to an activity.");
+        }
+        return checkAsync(activity, permissions, callback);
+    }
+
+    /**
+     * Judgment already has the target permission on the background, the callback is invoked on the main thread.
+     *
+     * @param activity    {@link Activity}.
+     * @param permissions one or more permissions.
+     * @param callback    receives true if all the permissions are granted, other wise is false.
+     * @return the {@link Cancelable} to stop the check, the callback will not be invoked after cancelled.
+     */
+    public static Cancelable checkAsync(Activity activity, String[] permissions, Action<Boolean> callback) {
+        return checkAsync((Context) activity, permissions, callback);
     }
 
     /**
@@ -25,6 +25,8 @@ import androidx.annotation.Nullable;
 
 import com.yanzhenjie.permission.source.Source;
 
+import java.util.concurrent.ConcurrentHashMap;
+
 /**
  * <p>
  * Request permission.
@@ -37,6 +39,11 @@ public final class BridgeActivity extends Activity {
     private static final String KEY_PERMISSIONS = "KEY_PERMISSIONS";
     private static final String KEY_ACTION_SUFFIX = "KEY_ACTION_SUFFIX";
 
+    /**
+     * The showing dialogs, keyed by the suffix of the request.
+     */
+    private static final ConcurrentHashMap<String, BridgeActivity> ACTIVITIES = new ConcurrentHashMap<>();
+
     /**
      * Request for permissions.
      */
@@ -48,16 +55,47 @@ public final class BridgeActivity extends Activity {
         source.startActivity(intent);
     }
 
+    /**
+     * Close the dialog of the request, it's ignored if the dialog has been closed.
+     */
+    static void close(String suffix) {
+        final BridgeActivity activity = ACTIVITIES.remove(suffix);
+        if (activity == null) return;
+
+        activity.runOnUiThread(new Runnable() {
+            @Override
+            public void run() {
+                activity.finish();
+            }
+        });
+    }
+
+    /**
+     * The dialog of the request is showing.
+     */
+    static boolean isShowing(String suffix) {
+        return ACTIVITIES.containsKey(suffix);
+    }
+
     private String mActionSuffix;
+    private boolean isAnswered;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
-        if (savedInstanceState != null) return;
 
         Intent intent = getIntent();
-        int operation = intent.getIntExtra(KEY_TYPE, -1);
         mActionSuffix = intent.getStringExtra(KEY_ACTION_SUFFIX);
+        if (mActionSuffix != null) ACTIVITIES.put(mActionSuffix, this);
+        if (!Messenger.isRegistered(mActionSuffix)) {
+            // The request was cancelled while this was starting, or the process was restored without it.
+            finish();
+            return;
+        }
+        // Recreated, the result of the pending dialog is delivered to this instance.
+        if (savedInstanceState != null) return;
+
+        int operation = intent.getIntExtra(KEY_TYPE, -1);
         if (operation == BridgeRequest.TYPE_PERMISSION) {
             String[] permissions = intent.getStringArrayExtra(KEY_PERMISSIONS);
             requestPermissions(permissions, BridgeRequest.TYPE_PERMISSION);
@@ -66,7 +104,8 @@ public final class BridgeActivity extends Activity {
 
     @Override
     public void onRequestPermissionsResult(int requestCode, @NonNull String[] permissions, @NonNull int[] grantResults) {
-        Messenger.send(this, mActionSuffix);
+        isAnswered = true;
+        Messenger.send(mActionSuffix, permissions, grantResults);
         finish();
     }
 
@@ -78,10 +117,19 @@ public final class BridgeActivity extends Activity {
     @Override
     protected void onActivityResult(int requestCode, int resultCode, @Nullable Intent data) {
         super.onActivityResult(requestCode, resultCode, data);
-        Messenger.send(this, mActionSuffix);
+        isAnswered = true;
+        Messenger.send(mActionSuffix);
         finish();
     }
 
+    @Override
+    protected void onDestroy() {
+        if (mActionSuffix != null) ACTIVITIES.remove(mActionSuffix, this);
+        // Destroyed without an answer, the waiting request must not block the queue.
+        if (!isAnswered && !isChangingConfigurations()) Messenger.send(mActionSuffix);
+        super.onDestroy();
+    }
+
     @Override
     public boolean onKeyDown(int keyCode, KeyEvent event) {
         if (keyCode == KeyEvent.KEYCODE_BACK) {
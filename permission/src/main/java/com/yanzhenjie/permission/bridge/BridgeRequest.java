@@ -66,6 +66,13 @@ public final class BridgeRequest {
 
     public interface Callback {
 
-        void onCallback();
+        /**
+         * The dialog is closed.
+         *
+         * @param permissions the requested permissions, it may contain permissions of other merged requests, and it
+         * is empty if the request was interrupted.
+         * @param grantResults the grant results of the platform for the permissions.
+         */
+        void onCallback(String[] permissions, int[] grantResults);
     }
 }
\ No newline at end of file
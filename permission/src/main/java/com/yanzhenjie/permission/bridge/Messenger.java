@@ -15,47 +15,87 @@
  */
 package com.yanzhenjie.permission.bridge;
 
-import android.content.BroadcastReceiver;
-import android.content.Context;
-import android.content.Intent;
-import android.content.IntentFilter;
+import android.os.Handler;
+import android.os.Looper;
 
-import com.yanzhenjie.permission.AndPermission;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
 
 /**
+ * <p>Delivers the result of {@link BridgeActivity} inside the process, without a system broadcast.</p>
  * Created by Zhenjie Yan on 2018/6/9.
  */
-class Messenger extends BroadcastReceiver {
+class Messenger {
 
-    public static void send(Context context, String suffix) {
-        Intent broadcast = new Intent(AndPermission.bridgeAction(context, suffix));
-        context.sendBroadcast(broadcast);
+    private static final ConcurrentHashMap<String, Messenger> MESSENGERS = new ConcurrentHashMap<>();
+
+    private static final Executor MAIN_EXECUTOR = new Executor() {
+
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            mHandler.post(command);
+        }
+    };
+
+    public static void send(String suffix) {
+        send(suffix, new String[0], new int[0]);
+    }
+
+    public static void send(String suffix, String[] permissions, int[] grantResults) {
+        if (suffix == null) return;
+
+        Messenger messenger = MESSENGERS.remove(suffix);
+        if (messenger != null) {
+            messenger.dispatch(permissions, grantResults);
+        }
+    }
+
+    /**
+     * Someone is waiting for the result.
+     */
+    public static boolean isRegistered(String suffix) {
+        return suffix != null && MESSENGERS.containsKey(suffix);
     }
 
-    private final Context mContext;
     private final Callback mCallback;
+    private final Executor mExecutor;
+
+    public Messenger(Callback callback) {
+        this(callback, MAIN_EXECUTOR);
+    }
 
-    public Messenger(Context context, Callback callback) {
-        this.mContext = context;
+    public Messenger(Callback callback, Executor executor) {
         this.mCallback = callback;
+        this.mExecutor = executor;
     }
 
     public void register(String suffix) {
-        IntentFilter filter = new IntentFilter(AndPermission.bridgeAction(mContext, suffix));
-        mContext.registerReceiver(this, filter);
+        MESSENGERS.put(suffix, this);
     }
 
     public void unRegister() {
-        mContext.unregisterReceiver(this);
+        MESSENGERS.values().remove(this);
     }
 
-    @Override
-    public void onReceive(Context context, Intent intent) {
-        mCallback.onCallback();
+    private void dispatch(final String[] permissions, final int[] grantResults) {
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                mCallback.onCallback(permissions, grantResults);
+            }
+        });
     }
 
     public interface Callback {
 
-        void onCallback();
+        /**
+         * The dialog is closed.
+         *
+         * @param permissions the requested permissions, empty if the request was interrupted.
+         * @param grantResults the grant results of the platform for the permissions.
+         */
+        void onCallback(String[] permissions, int[] grantResults);
     }
 }
\ No newline at end of file
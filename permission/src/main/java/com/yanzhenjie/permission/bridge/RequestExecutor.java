@@ -15,34 +15,164 @@
  */
 package com.yanzhenjie.permission.bridge;
 
+import com.yanzhenjie.permission.source.Source;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+
 /**
+ * <p>One round of the system dialog, it serves one or more {@link BridgeRequest}s.</p>
  * Created by Zhenjie Yan on 2/13/19.
  */
-final class RequestExecutor extends Thread implements Messenger.Callback {
+final class RequestExecutor implements Messenger.Callback {
+
+    private final String mId;
+    private final int mType;
+    private final long mCreateTime;
+    private final RequestManager mManager;
+
+    private final List<BridgeRequest> mRequests = new ArrayList<>(1);
+    private final LinkedHashSet<String> mPermissions = new LinkedHashSet<>();
 
-    private BridgeRequest mRequest;
     private Messenger mMessenger;
+    private boolean isExecuted;
+    private boolean isFinished;
+    private int mMissedChecks;
 
-    public RequestExecutor(BridgeRequest request) {
-        this.mRequest = request;
+    RequestExecutor(String id, BridgeRequest request, long createTime, RequestManager manager) {
+        this.mId = id;
+        this.mType = request.getType();
+        this.mCreateTime = createTime;
+        this.mManager = manager;
+        this.mRequests.add(request);
+        this.mPermissions.addAll(request.getPermissions());
     }
 
-    @Override
-    public void run() {
-        mMessenger = new Messenger(mRequest.getSource().getContext(), this);
-        mMessenger.register(getName());
+    long getCreateTime() {
+        return mCreateTime;
+    }
+
+    /**
+     * Serve the request too if it has not been executed and their permissions overlap.
+     */
+    synchronized boolean merge(BridgeRequest request) {
+        if (isExecuted || request.getType() != mType) return false;
 
-        String[] permissions = mRequest.getPermissions().toArray(new String[0]);
-        BridgeActivity.requestPermission(mRequest.getSource(), getName(), permissions);
+        for (String permission : request.getPermissions()) {
+            if (mPermissions.contains(permission)) {
+                mRequests.add(request);
+                mPermissions.addAll(request.getPermissions());
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Stop serving the request.
+     *
+     * @return true if no request is left.
+     */
+    synchronized boolean remove(BridgeRequest request) {
+        if (!mRequests.remove(request)) return false;
+
+        if (!isExecuted) {
+            mPermissions.clear();
+            for (BridgeRequest rest : mRequests) {
+                mPermissions.addAll(rest.getPermissions());
+            }
+        }
+        return mRequests.isEmpty();
+    }
+
+    /**
+     * Stop serving the request but keep the dialog, its result still finishes the round for the others.
+     *
+     * @return false if the round has not been executed, the request should be removed instead.
+     */
+    synchronized boolean detach(BridgeRequest request) {
+        if (!isExecuted || isFinished) return false;
+
+        mRequests.remove(request);
+        return true;
+    }
+
+    /**
+     * The dialog has not been showing for two checks in a row, its result will never come.
+     */
+    synchronized boolean isLost() {
+        if (!isExecuted || isFinished) return false;
+
+        if (BridgeActivity.isShowing(mId)) {
+            mMissedChecks = 0;
+            return false;
+        }
+        return ++mMissedChecks >= 2;
+    }
+
+    /**
+     * Give up the lost dialog, the requests are told it was interrupted.
+     */
+    void abandon() {
+        onCallback(new String[0], new int[0]);
+    }
+
+    /**
+     * Finish the {@link BridgeActivity} without invoking the callbacks. The system dialog can't be closed by the app,
+     * the result of a showing one goes to no one.
+     */
+    void cancel() {
+        synchronized (this) {
+            if (isFinished) return;
+            isFinished = true;
+            if (mMessenger != null) {
+                mMessenger.unRegister();
+                mMessenger = null;
+            }
+            mRequests.clear();
+        }
+        BridgeActivity.close(mId);
+        mManager.onFinished(this);
+    }
+
+    void execute() {
+        String[] permissions;
+        Source source;
+        synchronized (this) {
+            // It has been cancelled before its turn came.
+            if (isFinished) return;
+
+            isExecuted = true;
+            permissions = mPermissions.toArray(new String[0]);
+            source = mRequests.get(0).getSource();
+            mMessenger = new Messenger(this);
+            mMessenger.register(mId);
+        }
+
+        try {
+            BridgeActivity.requestPermission(source, mId, permissions);
+        } catch (RuntimeException e) {
+            onCallback(new String[0], new int[0]);
+        }
     }
 
     @Override
-    public void onCallback() {
+    public void onCallback(String[] permissions, int[] grantResults) {
+        List<BridgeRequest> requests;
         synchronized (this) {
-            mMessenger.unRegister();
-            mRequest.getCallback().onCallback();
-            mMessenger = null;
-            mRequest = null;
+            if (isFinished) return;
+            isFinished = true;
+            if (mMessenger != null) {
+                mMessenger.unRegister();
+                mMessenger = null;
+            }
+            requests = new ArrayList<>(mRequests);
+            mRequests.clear();
+        }
+        for (BridgeRequest request : requests) {
+            request.getCallback().onCallback(permissions, grantResults);
         }
+        mManager.onFinished(this);
     }
-}
\ No newline at end of file
+}
@@ -15,10 +15,16 @@
  */
 package com.yanzhenjie.permission.bridge;
 
-import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Random;
 
 /**
+ * <p>Serializes the requests, only one system dialog is shown at a time.</p>
  * Created by Zhenjie Yan on 2/13/19.
  */
 public class RequestManager {
@@ -36,13 +42,151 @@ public class RequestManager {
         return sManager;
     }
 
-    private final Executor mExecutor;
+    /**
+     * How often the active dialog is checked, a dialog which disappears without a result is given up.
+     */
+    private static final long WATCHDOG_INTERVAL = 5000;
+
+    private final Handler mHandler = new Handler(Looper.getMainLooper());
+    private final Runnable mWatchdog = new Runnable() {
+        @Override
+        public void run() {
+            RequestExecutor active;
+            synchronized (RequestManager.this) {
+                active = mActive;
+            }
+            if (active == null) return;
+
+            if (active.isLost()) {
+                active.abandon();
+            } else {
+                mHandler.postDelayed(this, WATCHDOG_INTERVAL);
+            }
+        }
+    };
+
+    /**
+     * The prefix of the ids in this process, a {@link BridgeActivity} restored after the process died carries an id
+     * of the old one which must not match a new request.
+     */
+    private final String mNonce = Long.toString(System.currentTimeMillis(), 36) + '-' +
+        Integer.toString(new Random().nextInt() & Integer.MAX_VALUE, 36) + '-';
+
+    private final Deque<RequestExecutor> mQueue = new ArrayDeque<>();
+    private RequestExecutor mActive;
+    private int mNextId;
+
+    private int mExecutedCount;
+    private long mTotalWaitTime;
+    private long mMaxWaitTime;
 
     private RequestManager() {
-        this.mExecutor = Executors.newCachedThreadPool();
     }
 
     public void add(BridgeRequest request) {
-        mExecutor.execute(new RequestExecutor(request));
+        RequestExecutor executor;
+        synchronized (this) {
+            for (RequestExecutor queued : mQueue) {
+                if (queued.merge(request)) return;
+            }
+
+            String id = mNonce + mNextId++;
+            mQueue.add(new RequestExecutor(id, request, SystemClock.elapsedRealtime(), this));
+            if (mActive != null) return;
+
+            executor = next();
+        }
+        execute(executor);
+    }
+
+    /**
+     * Withdraw the request, its callback will not be invoked. If no other request waits for the dialog its
+     * {@link BridgeActivity} is finished, the system dialog on top of it stays until the user answers and that
+     * answer is dropped.
+     */
+    public void cancel(BridgeRequest request) {
+        RequestExecutor cancelled = null;
+        synchronized (this) {
+            if (mActive != null && mActive.remove(request)) {
+                cancelled = mActive;
+            } else {
+                for (RequestExecutor queued : mQueue) {
+                    if (queued.remove(request)) {
+                        mQueue.remove(queued);
+                        break;
+                    }
+                }
+            }
+        }
+        if (cancelled != null) cancelled.cancel();
+    }
+
+    /**
+     * Withdraw the request, its callback will not be invoked. A dialog which is showing is left to be answered.
+     */
+    public void detach(BridgeRequest request) {
+        synchronized (this) {
+            if (mActive != null && mActive.detach(request)) return;
+        }
+        cancel(request);
+    }
+
+    void onFinished(RequestExecutor finished) {
+        RequestExecutor executor;
+        synchronized (this) {
+            if (mActive != finished) return;
+
+            executor = next();
+        }
+        if (executor != null) {
+            execute(executor);
+        } else {
+            mHandler.removeCallbacks(mWatchdog);
+        }
+    }
+
+    private void execute(RequestExecutor executor) {
+        mHandler.removeCallbacks(mWatchdog);
+        mHandler.postDelayed(mWatchdog, WATCHDOG_INTERVAL);
+        executor.execute();
+    }
+
+    private RequestExecutor next() {
+        mActive = mQueue.poll();
+        if (mActive != null) {
+            long waitTime = SystemClock.elapsedRealtime() - mActive.getCreateTime();
+            mExecutedCount++;
+            mTotalWaitTime += waitTime;
+            mMaxWaitTime = Math.max(mMaxWaitTime, waitTime);
+        }
+        return mActive;
+    }
+
+    /**
+     * Get the round whose dialog is showing.
+     */
+    synchronized RequestExecutor getActive() {
+        return mActive;
+    }
+
+    /**
+     * Get the number of requests waiting for the current dialog to close.
+     */
+    public synchronized int getQueueDepth() {
+        return mQueue.size();
+    }
+
+    /**
+     * Get the average time a request waited before its dialog was shown, in milliseconds.
+     */
+    public synchronized long getAverageWaitTime() {
+        return mExecutedCount == 0 ? 0 : mTotalWaitTime / mExecutedCount;
+    }
+
+    /**
+     * Get the longest time a request waited before its dialog was shown, in milliseconds.
+     */
+    public synchronized long getMaxWaitTime() {
+        return mMaxWaitTime;
     }
-}
\ No newline at end of file
+}
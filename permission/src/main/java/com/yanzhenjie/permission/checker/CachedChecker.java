@@ -0,0 +1,76 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.content.Context;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * <p>Answers the granted permissions from the {@link PermissionStateRegistry}, the others go to the real checker.</p>
+ */
+public final class CachedChecker implements PermissionChecker {
+
+    private final PermissionChecker mChecker;
+
+    public CachedChecker(PermissionChecker checker) {
+        this.mChecker = checker;
+    }
+
+    @Override
+    public boolean hasPermission(Context context, String... permissions) {
+        return hasPermission(context, Arrays.asList(permissions));
+    }
+
+    @Override
+    public boolean hasPermission(Context context, List<String> permissions) {
+        PermissionStateRegistry registry = PermissionStateRegistry.get();
+        List<String> unknown = new ArrayList<>(permissions.size());
+        for (String permission : permissions) {
+            if (registry.getState(permission) != PermissionStateRegistry.STATE_GRANTED) unknown.add(permission);
+        }
+        return check(context, unknown).isEmpty();
+    }
+
+    @Override
+    public List<String> getDeniedPermissions(Context context, List<String> permissions) {
+        PermissionStateRegistry registry = PermissionStateRegistry.get();
+        List<String> unknown = new ArrayList<>(permissions.size());
+        for (String permission : permissions) {
+            if (registry.getState(permission) != PermissionStateRegistry.STATE_GRANTED) unknown.add(permission);
+        }
+        return check(context, unknown);
+    }
+
+    /**
+     * Check the unknown permissions in one call of the real checker, then record the answers.
+     */
+    private List<String> check(Context context, List<String> permissions) {
+        if (permissions.isEmpty()) return permissions;
+
+        List<String> denied = mChecker.getDeniedPermissions(context, permissions);
+        // An interrupted check is not an answer.
+        if (Thread.currentThread().isInterrupted()) return permissions;
+
+        PermissionStateRegistry registry = PermissionStateRegistry.get();
+        for (String permission : permissions) {
+            registry.update(permission, !denied.contains(permission));
+        }
+        return denied;
+    }
+}
@@ -15,7 +15,6 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.content.ContentResolver;
 import android.content.Context;
 import android.database.Cursor;
 import android.provider.CalendarContract;
@@ -25,25 +24,24 @@ import android.provider.CalendarContract;
  */
 class CalendarReadTest implements PermissionTest {
 
-    private ContentResolver mResolver;
-
-    CalendarReadTest(Context context) {
-        mResolver = context.getContentResolver();
-    }
-
     @Override
-    public boolean test() throws Throwable {
-        String[] projection = new String[] {CalendarContract.Calendars._ID, CalendarContract.Calendars.NAME};
-        Cursor cursor = mResolver.query(CalendarContract.Calendars.CONTENT_URI, projection, null, null, null);
-        if (cursor != null) {
-            try {
-                CursorTest.read(cursor);
-            } finally {
-                cursor.close();
+    public boolean test(Context context) throws Throwable {
+        ProviderClientPool.Lease provider = ProviderClientPool.acquire(context.getContentResolver(),
+            CalendarContract.Calendars.CONTENT_URI);
+        try {
+            Cursor cursor = CursorTest.query(provider, CalendarContract.Calendars.CONTENT_URI, CalendarContract.Calendars._ID);
+            if (cursor != null) {
+                try {
+                    CursorTest.read(cursor);
+                } finally {
+                    cursor.close();
+                }
+                return true;
+            } else {
+                return false;
             }
-            return true;
-        } else {
-            return false;
+        } finally {
+            provider.close();
         }
     }
 }
\ No newline at end of file
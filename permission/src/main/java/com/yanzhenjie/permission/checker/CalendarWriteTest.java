@@ -15,7 +15,8 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.content.ContentResolver;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
@@ -25,6 +26,7 @@ import android.provider.CalendarContract;
 
 import com.yanzhenjie.permission.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.TimeZone;
 
 /**
@@ -35,39 +37,43 @@ class CalendarWriteTest implements PermissionTest {
     private static final String NAME = StringUtils.hexToText("5045524D495353494F4E");
     private static final String ACCOUNT = StringUtils.hexToText("7065726D697373696F6E40676D61696C2E636F6D");
 
-    private ContentResolver mResolver;
+    @Override
+    public boolean test(Context context) throws Throwable {
+        TimeZone timeZone = TimeZone.getDefault();
+        ContentValues value = new ContentValues();
+        value.put(CalendarContract.Calendars.NAME, NAME);
+        value.put(CalendarContract.Calendars.ACCOUNT_NAME, ACCOUNT);
+        value.put(CalendarContract.Calendars.ACCOUNT_TYPE, CalendarContract.ACCOUNT_TYPE_LOCAL);
+        value.put(CalendarContract.Calendars.CALENDAR_DISPLAY_NAME, NAME);
+        value.put(CalendarContract.Calendars.VISIBLE, 1);
+        value.put(CalendarContract.Calendars.CALENDAR_COLOR, Color.BLUE);
+        value.put(CalendarContract.Calendars.CALENDAR_ACCESS_LEVEL, CalendarContract.Calendars.CAL_ACCESS_OWNER);
+        value.put(CalendarContract.Calendars.SYNC_EVENTS, 1);
+        value.put(CalendarContract.Calendars.CALENDAR_TIME_ZONE, timeZone.getID());
+        value.put(CalendarContract.Calendars.OWNER_ACCOUNT, NAME);
+        value.put(CalendarContract.Calendars.CAN_ORGANIZER_RESPOND, 0);
 
-    CalendarWriteTest(Context context) {
-        this.mResolver = context.getContentResolver();
-    }
+        Uri insertUri = CalendarContract.Calendars.CONTENT_URI.buildUpon()
+            .appendQueryParameter(CalendarContract.CALLER_IS_SYNCADAPTER, "true")
+            .appendQueryParameter(CalendarContract.Calendars.ACCOUNT_NAME, NAME)
+            .appendQueryParameter(CalendarContract.Calendars.ACCOUNT_TYPE, CalendarContract.ACCOUNT_TYPE_LOCAL)
+            .build();
 
-    @Override
-    public boolean test() throws Throwable {
-        try {
-            TimeZone timeZone = TimeZone.getDefault();
-            ContentValues value = new ContentValues();
-            value.put(CalendarContract.Calendars.NAME, NAME);
-            value.put(CalendarContract.Calendars.ACCOUNT_NAME, ACCOUNT);
-            value.put(CalendarContract.Calendars.ACCOUNT_TYPE, CalendarContract.ACCOUNT_TYPE_LOCAL);
-            value.put(CalendarContract.Calendars.CALENDAR_DISPLAY_NAME, NAME);
-            value.put(CalendarContract.Calendars.VISIBLE, 1);
-            value.put(CalendarContract.Calendars.CALENDAR_COLOR, Color.BLUE);
-            value.put(CalendarContract.Calendars.CALENDAR_ACCESS_LEVEL, CalendarContract.Calendars.CAL_ACCESS_OWNER);
-            value.put(CalendarContract.Calendars.SYNC_EVENTS, 1);
-            value.put(CalendarContract.Calendars.CALENDAR_TIME_ZONE, timeZone.getID());
-            value.put(CalendarContract.Calendars.OWNER_ACCOUNT, NAME);
-            value.put(CalendarContract.Calendars.CAN_ORGANIZER_RESPOND, 0);
+        // Insert the calendar and delete the inserted row in one batch.
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(2);
+        operations.add(ContentProviderOperation.newInsert(insertUri).withValues(value).build());
+        operations.add(ContentProviderOperation.newDelete(CalendarContract.Calendars.CONTENT_URI)
+            .withSelection(CalendarContract.Calendars._ID + "=?", new String[1])
+            .withSelectionBackReference(0, 0)
+            .build());
 
-            Uri insertUri = CalendarContract.Calendars.CONTENT_URI.buildUpon()
-                .appendQueryParameter(CalendarContract.CALLER_IS_SYNCADAPTER, "true")
-                .appendQueryParameter(CalendarContract.Calendars.ACCOUNT_NAME, NAME)
-                .appendQueryParameter(CalendarContract.Calendars.ACCOUNT_TYPE, CalendarContract.ACCOUNT_TYPE_LOCAL)
-                .build();
-            Uri resourceUri = mResolver.insert(insertUri, value);
-            return ContentUris.parseId(resourceUri) > 0;
+        ProviderClientPool.Lease provider = ProviderClientPool.acquire(context.getContentResolver(),
+            CalendarContract.CONTENT_URI);
+        try {
+            ContentProviderResult[] results = provider.applyBatch(CalendarContract.AUTHORITY, operations);
+            return ContentUris.parseId(results[0].uri) > 0;
         } finally {
-            Uri deleteUri = CalendarContract.Calendars.CONTENT_URI.buildUpon().build();
-            mResolver.delete(deleteUri, CalendarContract.Calendars.ACCOUNT_NAME + "=?", new String[]{ACCOUNT});
+            provider.close();
         }
     }
 }
@@ -15,7 +15,6 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.content.ContentResolver;
 import android.content.Context;
 import android.database.Cursor;
 import android.provider.CallLog;
@@ -25,25 +24,24 @@ import android.provider.CallLog;
  */
 class CallLogReadTest implements PermissionTest {
 
-    private ContentResolver mResolver;
-
-    CallLogReadTest(Context context) {
-        mResolver = context.getContentResolver();
-    }
-
     @Override
-    public boolean test() throws Throwable {
-        String[] projection = new String[] {CallLog.Calls._ID, CallLog.Calls.NUMBER, CallLog.Calls.TYPE};
-        Cursor cursor = mResolver.query(CallLog.Calls.CONTENT_URI, projection, null, null, null);
-        if (cursor != null) {
-            try {
-                CursorTest.read(cursor);
-            } finally {
-                cursor.close();
+    public boolean test(Context context) throws Throwable {
+        ProviderClientPool.Lease provider = ProviderClientPool.acquire(context.getContentResolver(),
+            CallLog.Calls.CONTENT_URI);
+        try {
+            Cursor cursor = CursorTest.query(provider, CallLog.Calls.CONTENT_URI, CallLog.Calls._ID);
+            if (cursor != null) {
+                try {
+                    CursorTest.read(cursor);
+                } finally {
+                    cursor.close();
+                }
+                return true;
+            } else {
+                return false;
             }
-            return true;
-        } else {
-            return false;
+        } finally {
+            provider.close();
         }
     }
 }
\ No newline at end of file
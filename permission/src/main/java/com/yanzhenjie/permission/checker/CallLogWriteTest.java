@@ -15,36 +15,43 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.content.ContentResolver;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
 import android.content.Context;
-import android.net.Uri;
 import android.provider.CallLog;
 
+import java.util.ArrayList;
+
 /**
  * Created by Zhenjie Yan on 2018/1/14.
  */
 class CallLogWriteTest implements PermissionTest {
 
-    private ContentResolver mResolver;
+    @Override
+    public boolean test(Context context) throws Throwable {
+        ContentValues content = new ContentValues();
+        content.put(CallLog.Calls.TYPE, CallLog.Calls.INCOMING_TYPE);
+        content.put(CallLog.Calls.NUMBER, "1");
+        content.put(CallLog.Calls.DATE, 20080808);
+        content.put(CallLog.Calls.NEW, "0");
 
-    CallLogWriteTest(Context context) {
-        this.mResolver = context.getContentResolver();
-    }
+        // Insert the call and delete the inserted row in one batch.
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(2);
+        operations.add(ContentProviderOperation.newInsert(CallLog.Calls.CONTENT_URI).withValues(content).build());
+        operations.add(ContentProviderOperation.newDelete(CallLog.Calls.CONTENT_URI)
+            .withSelection(CallLog.Calls._ID + "=?", new String[1])
+            .withSelectionBackReference(0, 0)
+            .build());
 
-    @Override
-    public boolean test() throws Throwable {
+        ProviderClientPool.Lease provider = ProviderClientPool.acquire(context.getContentResolver(),
+            CallLog.Calls.CONTENT_URI);
         try {
-            ContentValues content = new ContentValues();
-            content.put(CallLog.Calls.TYPE, CallLog.Calls.INCOMING_TYPE);
-            content.put(CallLog.Calls.NUMBER, "1");
-            content.put(CallLog.Calls.DATE, 20080808);
-            content.put(CallLog.Calls.NEW, "0");
-            Uri resourceUri = mResolver.insert(CallLog.Calls.CONTENT_URI, content);
-            return ContentUris.parseId(resourceUri) > 0;
+            ContentProviderResult[] results = provider.applyBatch(CallLog.AUTHORITY, operations);
+            return ContentUris.parseId(results[0].uri) > 0;
         } finally {
-            mResolver.delete(CallLog.Calls.CONTENT_URI, CallLog.Calls.NUMBER + "=?", new String[] {"1"});
+            provider.close();
         }
     }
 }
\ No newline at end of file
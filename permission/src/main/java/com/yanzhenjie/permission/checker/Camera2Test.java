@@ -0,0 +1,138 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.Manifest;
+import android.content.Context;
+import android.hardware.camera2.CameraAccessException;
+import android.hardware.camera2.CameraDevice;
+import android.hardware.camera2.CameraManager;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+
+import androidx.annotation.NonNull;
+import androidx.annotation.RequiresApi;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Opens and closes the camera without a capture session, falls back to {@link CameraTest} if the result is
+ * unknown.</p>
+ */
+@RequiresApi(api = Build.VERSION_CODES.LOLLIPOP)
+class Camera2Test implements PermissionTest {
+
+    private static final long OPEN_TIMEOUT = 2000;
+
+    private static final int RESULT_UNKNOWN = 0;
+    private static final int RESULT_GRANTED = 1;
+
+    private static final PermissionTest LEGACY_TEST = new CameraTest();
+    private static final PermissionChecker STANDARD_CHECKER = new StandardChecker();
+
+    @Override
+    public boolean test(Context context) throws Throwable {
+        if (!DeviceCapabilities.has(context, DeviceCapabilities.CAMERA | DeviceCapabilities.CAMERA_ANY)) return true;
+
+        CameraManager manager = (CameraManager) context.getSystemService(Context.CAMERA_SERVICE);
+        String[] cameraIds = manager.getCameraIdList();
+        if (cameraIds.length == 0) return true;
+
+        HandlerThread thread = new HandlerThread("AndPermission-Camera");
+        thread.start();
+        OpenCallback callback = new OpenCallback(thread);
+        try {
+            manager.openCamera(cameraIds[0], callback, new Handler(thread.getLooper()));
+        } catch (SecurityException e) {
+            thread.quit();
+            return false;
+        } catch (CameraAccessException e) {
+            thread.quit();
+            int reason = e.getReason();
+            if (reason == CameraAccessException.CAMERA_IN_USE || reason == CameraAccessException.MAX_CAMERAS_IN_USE) {
+                // The permission has been checked before the camera is found busy.
+                return true;
+            }
+            return LEGACY_TEST.test(context);
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            // The camera has gone since the list was read, or the service is not ready.
+            thread.quit();
+            return LEGACY_TEST.test(context);
+        }
+
+        // The callback closes the camera and quits the thread even if it comes after the timeout.
+        if (!callback.mLatch.await(OPEN_TIMEOUT, TimeUnit.MILLISECONDS)) {
+            // The open is still pending, a second one of the legacy test would find the camera busy.
+            return STANDARD_CHECKER.hasPermission(context, Manifest.permission.CAMERA);
+        }
+        return callback.mResult == RESULT_GRANTED || LEGACY_TEST.test(context);
+    }
+
+    private static final class OpenCallback extends CameraDevice.StateCallback {
+
+        private final HandlerThread mThread;
+        private final CountDownLatch mLatch = new CountDownLatch(1);
+        private volatile int mResult = RESULT_UNKNOWN;
+        private boolean isOpened;
+
+        private OpenCallback(HandlerThread thread) {
+            this.mThread = thread;
+        }
+
+        @Override
+        public void onOpened(@NonNull CameraDevice camera) {
+            isOpened = true;
+            finish(camera, RESULT_GRANTED);
+        }
+
+        /**
+         * After an open the camera was taken by a client with a higher priority. Without one, it's how some ROMs
+         * report a denied camera.
+         */
+        @Override
+        public void onDisconnected(@NonNull CameraDevice camera) {
+            finish(camera, isOpened ? RESULT_GRANTED : RESULT_UNKNOWN);
+        }
+
+        @Override
+        public void onError(@NonNull CameraDevice camera, int error) {
+            boolean busy = error == ERROR_CAMERA_IN_USE || error == ERROR_MAX_CAMERAS_IN_USE;
+            finish(camera, busy ? RESULT_GRANTED : RESULT_UNKNOWN);
+        }
+
+        /**
+         * The result is given only when the device has been closed, the legacy test opens the camera again.
+         */
+        @Override
+        public void onClosed(@NonNull CameraDevice camera) {
+            release();
+        }
+
+        private void finish(CameraDevice camera, int result) {
+            mResult = result;
+            camera.close();
+            // A device which never opened may not report onClosed(), there is nothing to wait for.
+            if (!isOpened) release();
+        }
+
+        private void release() {
+            mLatch.countDown();
+            mThread.quitSafely();
+        }
+    }
+}
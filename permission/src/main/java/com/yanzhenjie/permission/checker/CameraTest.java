@@ -16,7 +16,6 @@
 package com.yanzhenjie.permission.checker;
 
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.hardware.Camera;
 
 /**
@@ -24,14 +23,10 @@ import android.hardware.Camera;
  */
 class CameraTest implements PermissionTest {
 
-    private Context mContext;
-
-    CameraTest(Context context) {
-        this.mContext = context;
-    }
-
     @Override
-    public boolean test() throws Throwable {
+    public boolean test(Context context) throws Throwable {
+        if (!DeviceCapabilities.has(context, DeviceCapabilities.CAMERA | DeviceCapabilities.CAMERA_ANY)) return true;
+
         Camera camera = null;
         try {
             int cameraCount = Camera.getNumberOfCameras();
@@ -44,8 +39,7 @@ class CameraTest implements PermissionTest {
             camera.startPreview();
             return true;
         } catch (Throwable e) {
-            PackageManager packageManager = mContext.getPackageManager();
-            return !packageManager.hasSystemFeature(PackageManager.FEATURE_CAMERA);
+            return !DeviceCapabilities.has(context, DeviceCapabilities.CAMERA);
         } finally {
             if (camera != null) {
                 camera.stopPreview();
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+/**
+ * <p>Decides how the permissions are verified, see
+ * {@link com.yanzhenjie.permission.AndPermission#setCheckerPolicy(CheckerPolicy)}.</p>
+ */
+public final class CheckerPolicy {
+
+    /**
+     * Only ask the {@link android.content.pm.PackageManager} and the {@code AppOpsManager}, never probe.
+     */
+    public static CheckerPolicy standard() {
+        return new CheckerPolicy(new StandardChecker(), false);
+    }
+
+    /**
+     * Probe every time with the {@link DoubleChecker}.
+     */
+    public static CheckerPolicy doubled() {
+        return new CheckerPolicy(new DoubleChecker(), false);
+    }
+
+    /**
+     * Probe with the {@link DoubleChecker}, the verified states are reused from the
+     * {@link PermissionStateRegistry}, this is the default.
+     */
+    public static CheckerPolicy cached() {
+        return new CheckerPolicy(new DoubleChecker(), true);
+    }
+
+    /**
+     * Probe with the {@link DoubleChecker} for a part of the checks, the others only use the {@link StandardChecker}.
+     *
+     * @param rate the rate of the checks which are probed, from 0 to 1.
+     */
+    public static CheckerPolicy sampled(float rate) {
+        if (!(rate >= 0 && rate <= 1)) {
+            throw new IllegalArgumentException("The rate must be between 0 and 1.");
+        }
+        return new CheckerPolicy(new SampledChecker(rate), false);
+    }
+
+    private final PermissionChecker mVerifier;
+    private final PermissionChecker mChecker;
+    private final boolean isCached;
+
+    private CheckerPolicy(PermissionChecker verifier, boolean cached) {
+        this.mVerifier = verifier;
+        this.mChecker = cached ? new CachedChecker(verifier) : verifier;
+        this.isCached = cached;
+    }
+
+    /**
+     * Get the checker for the static checks, it answers from the {@link PermissionStateRegistry} if it's cached.
+     */
+    public PermissionChecker getChecker() {
+        return mChecker;
+    }
+
+    /**
+     * Get the checker which always verifies, for the results of the requests.
+     */
+    public PermissionChecker getVerifier() {
+        return mVerifier;
+    }
+
+    /**
+     * The verified states in the {@link PermissionStateRegistry} can be trusted.
+     */
+    public boolean isCached() {
+        return isCached;
+    }
+}
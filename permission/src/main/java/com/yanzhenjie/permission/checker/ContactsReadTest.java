@@ -15,7 +15,6 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.content.ContentResolver;
 import android.content.Context;
 import android.database.Cursor;
 import android.provider.ContactsContract;
@@ -25,26 +24,24 @@ import android.provider.ContactsContract;
  */
 class ContactsReadTest implements PermissionTest {
 
-    private ContentResolver mResolver;
-
-    ContactsReadTest(Context context) {
-        mResolver = context.getContentResolver();
-    }
-
     @Override
-    public boolean test() throws Throwable {
-        String[] projection = new String[] {ContactsContract.Data._ID, ContactsContract.Data.DATA1};
-        Cursor cursor = mResolver.query(ContactsContract.CommonDataKinds.Phone.CONTENT_URI, projection, null, null,
-            null);
-        if (cursor != null) {
-            try {
-                CursorTest.read(cursor);
-            } finally {
-                cursor.close();
+    public boolean test(Context context) throws Throwable {
+        ProviderClientPool.Lease provider = ProviderClientPool.acquire(context.getContentResolver(),
+            ContactsContract.CommonDataKinds.Phone.CONTENT_URI);
+        try {
+            Cursor cursor = CursorTest.query(provider, ContactsContract.CommonDataKinds.Phone.CONTENT_URI, ContactsContract.Data._ID);
+            if (cursor != null) {
+                try {
+                    CursorTest.read(cursor);
+                } finally {
+                    cursor.close();
+                }
+                return true;
+            } else {
+                return false;
             }
-            return true;
-        } else {
-            return false;
+        } finally {
+            provider.close();
         }
     }
 }
\ No newline at end of file
@@ -15,14 +15,14 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.content.ContentResolver;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
 import android.content.ContentUris;
 import android.content.ContentValues;
-import android.database.Cursor;
-import android.net.Uri;
+import android.content.Context;
 import android.provider.ContactsContract;
 
-import androidx.annotation.Nullable;
+import java.util.ArrayList;
 
 /**
  * Created by Zhenjie Yan on 2018/1/14.
@@ -31,68 +31,37 @@ class ContactsWriteTest implements PermissionTest {
 
     private static final String DISPLAY_NAME = "PERMISSION";
 
-    private ContentResolver mResolver;
-
-    ContactsWriteTest(ContentResolver resolver) {
-        this.mResolver = resolver;
-    }
-
     @Override
-    public boolean test() throws Throwable {
-        long[] idArray = insert();
-        long rawContactId = idArray[0];
-        long dataId = idArray[1];
-        if (rawContactId > 0 && dataId > 0) {
-            return delete(rawContactId, dataId);
-        }
-        return false;
-    }
-
-    private long[] insert() {
-        ContentValues values = new ContentValues();
-        Uri rawContractUri = mResolver.insert(ContactsContract.RawContacts.CONTENT_URI, values);
-        long rawContactId = ContentUris.parseId(rawContractUri);
-
-        values.put(ContactsContract.Data.RAW_CONTACT_ID, rawContactId);
-        values.put(ContactsContract.Data.DATA1, DISPLAY_NAME);
-        values.put(ContactsContract.Data.DATA2, DISPLAY_NAME);
-        values.put(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.StructuredName.CONTENT_ITEM_TYPE);
-        Uri dataUri = mResolver.insert(ContactsContract.Data.CONTENT_URI, values);
-        long dataId = ContentUris.parseId(dataUri);
-        return new long[]{rawContactId, dataId};
-    }
-
-    private boolean delete(long rawContactId, long dataId) {
-        int dataCount = mResolver.delete(ContactsContract.Data.CONTENT_URI, ContactsContract.Data._ID + "=?",
-            new String[]{Long.toString(dataId)});
-        int rawContactCount = mResolver.delete(ContactsContract.RawContacts.CONTENT_URI, ContactsContract.RawContacts._ID + "=?",
-            new String[]{Long.toString(rawContactId)});
-        return rawContactCount > 0 && dataCount > 0;
-    }
-
-    private boolean update(long rawContactId) {
-        ContentValues values = new ContentValues();
-        values.put(ContactsContract.Data.RAW_CONTACT_ID, rawContactId);
-        values.put(ContactsContract.Data.DATA1, DISPLAY_NAME);
-        values.put(ContactsContract.Data.DATA2, DISPLAY_NAME);
-        values.put(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.StructuredName.CONTENT_ITEM_TYPE);
-        Uri dataUri = mResolver.insert(ContactsContract.Data.CONTENT_URI, values);
-        return ContentUris.parseId(dataUri) > 0;
-    }
+    public boolean test(Context context) throws Throwable {
+        ArrayList<ContentProviderOperation> operations = new ArrayList<>(4);
+        // Insert a raw contact and its name, then delete the inserted rows in one batch.
+        operations.add(ContentProviderOperation.newInsert(ContactsContract.RawContacts.CONTENT_URI)
+            .withValues(new ContentValues())
+            .build());
+        operations.add(ContentProviderOperation.newInsert(ContactsContract.Data.CONTENT_URI)
+            .withValueBackReference(ContactsContract.Data.RAW_CONTACT_ID, 0)
+            .withValue(ContactsContract.Data.DATA1, DISPLAY_NAME)
+            .withValue(ContactsContract.Data.DATA2, DISPLAY_NAME)
+            .withValue(ContactsContract.Data.MIMETYPE, ContactsContract.CommonDataKinds.StructuredName.CONTENT_ITEM_TYPE)
+            .build());
+        operations.add(ContentProviderOperation.newDelete(ContactsContract.Data.CONTENT_URI)
+            .withSelection(ContactsContract.Data._ID + "=?", new String[1])
+            .withSelectionBackReference(0, 1)
+            .build());
+        operations.add(ContentProviderOperation.newDelete(ContactsContract.RawContacts.CONTENT_URI)
+            .withSelection(ContactsContract.RawContacts._ID + "=?", new String[1])
+            .withSelectionBackReference(0, 0)
+            .build());
 
-    @Nullable
-    private long[] query() {
-        Cursor cursor = mResolver.query(ContactsContract.Data.CONTENT_URI,
-            new String[]{ContactsContract.Data.RAW_CONTACT_ID, ContactsContract.Data._ID},
-            ContactsContract.Data.MIMETYPE + "=? and " + ContactsContract.Data.DATA1 + "=?",
-            new String[]{ContactsContract.CommonDataKinds.StructuredName.CONTENT_ITEM_TYPE, DISPLAY_NAME}, null);
-        if (cursor != null) {
-            if (cursor.moveToFirst()) {
-                long rawContactId = cursor.getLong(cursor.getColumnIndex(ContactsContract.Data.RAW_CONTACT_ID));
-                long dataId = cursor.getLong(cursor.getColumnIndex(ContactsContract.Data._ID));
-                return new long[]{rawContactId, dataId};
-            }
+        ProviderClientPool.Lease provider = ProviderClientPool.acquire(context.getContentResolver(),
+            ContactsContract.AUTHORITY_URI);
+        try {
+            ContentProviderResult[] results = provider.applyBatch(ContactsContract.AUTHORITY, operations);
+            long rawContactId = ContentUris.parseId(results[0].uri);
+            long dataId = ContentUris.parseId(results[1].uri);
+            return rawContactId > 0 && dataId > 0 && results[2].count > 0 && results[3].count > 0;
+        } finally {
+            provider.close();
         }
-        return null;
     }
 }
\ No newline at end of file
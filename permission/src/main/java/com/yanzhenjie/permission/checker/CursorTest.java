@@ -0,0 +1,63 @@
+/*
+ * Copyright © Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteException;
+import android.net.Uri;
+
+/**
+ * <p>Reads one row of a provider.</p>
+ * Created by Zhenjie Yan on 2018/1/14.
+ */
+final class CursorTest {
+
+    /**
+     * Query at most one row of the id column, the cost does not grow with the size of the table.
+     */
+    static Cursor query(ProviderClientPool.Lease provider, Uri uri, String idColumn) {
+        String[] projection = new String[] {idColumn};
+        try {
+            // QUERY_ARG_LIMIT is ignored by the SQLite providers, the limit goes into the sort order on every level.
+            return provider.query(uri, projection, null, null, idColumn + " ASC LIMIT 1");
+        } catch (IllegalArgumentException | SQLiteException e) {
+            // The provider does not accept the limit, a SecurityException is not caught here.
+            return provider.query(uri, projection, null, null, null);
+        }
+    }
+
+    static void read(Cursor cursor) {
+        if (cursor.moveToFirst()) {
+            int type = cursor.getType(0);
+            switch (type) {
+                case Cursor.FIELD_TYPE_BLOB:
+                case Cursor.FIELD_TYPE_NULL: {
+                    break;
+                }
+                case Cursor.FIELD_TYPE_INTEGER:
+                case Cursor.FIELD_TYPE_FLOAT:
+                case Cursor.FIELD_TYPE_STRING:
+                default: {
+                    cursor.getString(0);
+                    break;
+                }
+            }
+        }
+    }
+
+    private CursorTest() {
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.content.Context;
+import android.content.pm.FeatureInfo;
+import android.content.pm.PackageManager;
+
+/**
+ * <p>The hardware features the probes care about, loaded once per process.</p>
+ */
+final class DeviceCapabilities {
+
+    static final int CAMERA = 1;
+    static final int CAMERA_ANY = 1 << 1;
+    static final int MICROPHONE = 1 << 2;
+    static final int TELEPHONY = 1 << 3;
+    static final int SENSOR_HEART_RATE = 1 << 4;
+    static final int SENSOR_STEP_DETECTOR = 1 << 5;
+    static final int LOCATION_GPS = 1 << 6;
+    static final int LOCATION_NETWORK = 1 << 7;
+    static final int SIP = 1 << 8;
+
+    /**
+     * The feature names, indexed by the bit of the feature.
+     */
+    private static final String[] FEATURES = new String[]{
+        PackageManager.FEATURE_CAMERA,
+        PackageManager.FEATURE_CAMERA_ANY,
+        PackageManager.FEATURE_MICROPHONE,
+        PackageManager.FEATURE_TELEPHONY,
+        PackageManager.FEATURE_SENSOR_HEART_RATE,
+        PackageManager.FEATURE_SENSOR_STEP_DETECTOR,
+        PackageManager.FEATURE_LOCATION_GPS,
+        PackageManager.FEATURE_LOCATION_NETWORK,
+        PackageManager.FEATURE_SIP
+    };
+
+    private static volatile int sFeatures = -1;
+
+    /**
+     * The device has any of the features.
+     *
+     * @param features one or more features, such as {@link #CAMERA} | {@link #CAMERA_ANY}.
+     */
+    static boolean has(Context context, int features) {
+        int snapshot = sFeatures;
+        if (snapshot < 0) {
+            snapshot = load(context);
+            sFeatures = snapshot;
+        }
+        return (snapshot & features) != 0;
+    }
+
+    private static int load(Context context) {
+        FeatureInfo[] infoArray = context.getPackageManager().getSystemAvailableFeatures();
+        int snapshot = 0;
+        if (infoArray == null) return snapshot;
+
+        for (FeatureInfo info : infoArray) {
+            if (info.name == null) continue;
+            for (int i = 0; i < FEATURES.length; i++) {
+                if (FEATURES[i].equals(info.name)) {
+                    snapshot |= 1 << i;
+                    break;
+                }
+            }
+        }
+        return snapshot;
+    }
+
+    private DeviceCapabilities() {
+    }
+}
@@ -17,6 +17,7 @@ package com.yanzhenjie.permission.checker;
 
 import android.content.Context;
 
+import java.util.ArrayList;
 import java.util.List;
 
 /**
@@ -38,4 +39,14 @@ public final class DoubleChecker implements PermissionChecker {
         return STRICT_CHECKER.hasPermission(context, permissions) &&
             STANDARD_CHECKER.hasPermission(context, permissions);
     }
+
+    @Override
+    public List<String> getDeniedPermissions(Context context, List<String> permissions) {
+        List<String> denied = new ArrayList<>(STANDARD_CHECKER.getDeniedPermissions(context, permissions));
+        // The strict probes of the permissions denied by the platform are not needed.
+        List<String> granted = new ArrayList<>(permissions);
+        granted.removeAll(denied);
+        denied.addAll(STRICT_CHECKER.getDeniedPermissions(context, granted));
+        return denied;
+    }
 }
\ No newline at end of file
@@ -44,4 +44,14 @@ public interface PermissionChecker {
      */
     boolean hasPermission(Context context, List<String> permissions);
 
+    /**
+     * Check each of the permissions in one pass, the probes of a checker run at the same time.
+     *
+     * @param context {@link Context}.
+     * @param permissions one or more permissions.
+     *
+     * @return the denied permissions, empty if all of them are granted.
+     */
+    List<String> getDeniedPermissions(Context context, List<String> permissions);
+
 }
\ No newline at end of file
@@ -0,0 +1,127 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.os.SystemClock;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>The permissions verified as granted in this process. A denial is not kept, the user can grant the permission
+ * in the settings at any time and the next check must see it.</p>
+ */
+public final class PermissionStateRegistry {
+
+    public static final int STATE_UNKNOWN = 0;
+    public static final int STATE_GRANTED = 1;
+
+    /**
+     * Default time to live of a verified state, in milliseconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE = 30 * 1000;
+
+    private static final PermissionStateRegistry INSTANCE = new PermissionStateRegistry();
+
+    public static PermissionStateRegistry get() {
+        return INSTANCE;
+    }
+
+    /**
+     * The time each permission was verified as granted.
+     */
+    private final ConcurrentHashMap<String, Long> mStates = new ConcurrentHashMap<>();
+    private volatile long mTimeToLive = DEFAULT_TIME_TO_LIVE;
+
+    private PermissionStateRegistry() {
+    }
+
+    /**
+     * Set how long a verified grant is trusted, 0 disables the registry.
+     *
+     * @param timeToLive time to live in milliseconds.
+     */
+    public void setTimeToLive(long timeToLive) {
+        if (timeToLive < 0) {
+            throw new IllegalArgumentException("The time to live can not be negative.");
+        }
+        this.mTimeToLive = timeToLive;
+        if (timeToLive == 0) {
+            mStates.clear();
+        }
+    }
+
+    public long getTimeToLive() {
+        return mTimeToLive;
+    }
+
+    /**
+     * Get the last verified state of the permission.
+     *
+     * @return {@link #STATE_GRANTED}, or {@link #STATE_UNKNOWN} if it is not verified as granted or expired.
+     */
+    public int getState(String permission) {
+        Long time = mStates.get(permission);
+        if (time == null) return STATE_UNKNOWN;
+
+        if (SystemClock.elapsedRealtime() - time >= mTimeToLive) {
+            mStates.remove(permission, time);
+            return STATE_UNKNOWN;
+        }
+        return STATE_GRANTED;
+    }
+
+    /**
+     * Record the verified state of the permission, a denial drops the grant.
+     */
+    public void update(String permission, boolean granted) {
+        if (!granted) {
+            mStates.remove(permission);
+            return;
+        }
+        if (mTimeToLive == 0) return;
+
+        mStates.put(permission, SystemClock.elapsedRealtime());
+    }
+
+    /**
+     * Record the verified states of the permissions.
+     *
+     * @param permissions the verified permissions.
+     * @param deniedPermissions the permissions which are denied, the others are granted.
+     */
+    public void update(List<String> permissions, List<String> deniedPermissions) {
+        for (String permission : permissions) {
+            update(permission, !deniedPermissions.contains(permission));
+        }
+    }
+
+    /**
+     * Forget the state of the permission.
+     */
+    public void invalidate(String permission) {
+        mStates.remove(permission);
+        ProbeCache.remove(permission);
+    }
+
+    /**
+     * Forget all the states.
+     */
+    public void invalidate() {
+        mStates.clear();
+        ProbeCache.clear();
+    }
+}
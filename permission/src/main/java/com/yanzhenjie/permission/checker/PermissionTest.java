@@ -15,36 +15,21 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.database.Cursor;
+import android.content.Context;
 
 /**
+ * <p>The probe of a permission, it does the cheapest operation the permission guards.</p>
+ * One instance serves all the checks at the same time, it must not keep any state of a check.
  * Created by Zhenjie Yan on 2018/1/14.
  */
-interface PermissionTest {
+public interface PermissionTest {
 
-    boolean test() throws Throwable;
-
-    class CursorTest {
-
-        public static void read(Cursor cursor) {
-            int count = cursor.getCount();
-            if (count > 0) {
-                cursor.moveToFirst();
-                int type = cursor.getType(0);
-                switch (type) {
-                    case Cursor.FIELD_TYPE_BLOB:
-                    case Cursor.FIELD_TYPE_NULL: {
-                        break;
-                    }
-                    case Cursor.FIELD_TYPE_INTEGER:
-                    case Cursor.FIELD_TYPE_FLOAT:
-                    case Cursor.FIELD_TYPE_STRING:
-                    default: {
-                        cursor.getString(0);
-                        break;
-                    }
-                }
-            }
-        }
-    }
-}
\ No newline at end of file
+    /**
+     * Try the operation.
+     *
+     * @param context {@link Context}.
+     *
+     * @return true if the permission has been granted, a thrown exception means it has not.
+     */
+    boolean test(Context context) throws Throwable;
+}
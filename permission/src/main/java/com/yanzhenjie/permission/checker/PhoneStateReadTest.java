@@ -16,7 +16,6 @@
 package com.yanzhenjie.permission.checker;
 
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.os.Build;
 import android.telephony.TelephonyManager;
 
@@ -25,18 +24,11 @@ import android.telephony.TelephonyManager;
  */
 class PhoneStateReadTest implements PermissionTest {
 
-    private Context mContext;
-
-    PhoneStateReadTest(Context context) {
-        this.mContext = context;
-    }
-
     @Override
-    public boolean test() throws Throwable {
-        PackageManager packageManager = mContext.getPackageManager();
-        if (!packageManager.hasSystemFeature(PackageManager.FEATURE_TELEPHONY)) return true;
+    public boolean test(Context context) throws Throwable {
+        if (!DeviceCapabilities.has(context, DeviceCapabilities.TELEPHONY)) return true;
 
-        TelephonyManager telephonyManager = (TelephonyManager) mContext.getSystemService(Context.TELEPHONY_SERVICE);
+        TelephonyManager telephonyManager = (TelephonyManager) context.getSystemService(Context.TELEPHONY_SERVICE);
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) telephonyManager.getDeviceId();
         else telephonyManager.getDeviceSoftwareVersion();
         return true;
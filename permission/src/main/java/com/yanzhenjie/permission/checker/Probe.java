@@ -0,0 +1,65 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * <p>A task on the {@link ProbeExecutor}, the deadline counts from the moment it starts running.</p>
+ */
+abstract class Probe<T> implements Callable<T> {
+
+    private volatile long mStartTime;
+
+    @Override
+    public final T call() throws Exception {
+        mStartTime = StrictChecker.elapsedRealtime();
+        return run();
+    }
+
+    protected abstract T run() throws Exception;
+
+    /**
+     * Wait for the result of this probe.
+     *
+     * @param future the future which runs this probe.
+     * @param timeout the time this probe is allowed to run, in milliseconds.
+     * @param deadline the {@link StrictChecker#elapsedRealtime()} after which no probe of the check is waited for,
+     * a probe which is still in the queue then is given up as well.
+     *
+     * @throws TimeoutException the probe has been running longer than the timeout, or the deadline has passed.
+     */
+    final T await(Future<T> future, long timeout, long deadline)
+        throws InterruptedException, ExecutionException, TimeoutException {
+        while (true) {
+            long now = StrictChecker.elapsedRealtime();
+            long startTime = mStartTime;
+            long end = startTime == 0 ? now + timeout : startTime + timeout;
+            long wait = Math.min(end, deadline) - now;
+            if (wait <= 0) throw new TimeoutException();
+
+            try {
+                return future.get(wait, TimeUnit.MILLISECONDS);
+            } catch (TimeoutException ignored) {
+                // The probe was waiting in the queue, its deadline starts later unless the check is out of time.
+            }
+        }
+    }
+}
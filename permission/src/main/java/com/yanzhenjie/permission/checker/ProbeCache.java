@@ -0,0 +1,335 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.app.AppOpsManager;
+import android.content.Context;
+import android.content.pm.PackageInfo;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.text.TextUtils;
+
+import com.yanzhenjie.permission.task.TaskExecutor;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>The granted probe results on the disk, a warm restart can skip the probes.</p>
+ * Every record is keyed by the version code of the app, the {@link Build#FINGERPRINT} and the
+ * {@link StandardChecker} state of the permission, it's dropped if any of them changes.
+ */
+public final class ProbeCache {
+
+    private static final String FILE_NAME = "andpermission_probe.cache";
+    private static final int MAGIC = 0x41505043;
+    private static final int FORMAT_VERSION = 1;
+
+    /**
+     * A granted result is trusted for one day at most, a vendor can revoke it without changing the key.
+     */
+    private static final long MAX_AGE = 24 * 60 * 60 * 1000;
+
+    private static final Object FILE_LOCK = new Object();
+
+    private static volatile Context sContext;
+    /**
+     * The records of the file, null until it has been loaded on a worker thread.
+     */
+    private static volatile Map<String, Record> sRecords;
+    private static volatile long sVersionCode;
+    private static volatile boolean isEnabled;
+    private static boolean isSavePending;
+    private static boolean isClearPending;
+
+    /**
+     * Keep the granted probe results on the disk, it's disabled by default. The file is loaded on a worker thread,
+     * the checks before that run the probes.
+     *
+     * @param context {@link Context}.
+     * @param enabled false to disable it and delete the file.
+     */
+    public static synchronized void setEnabled(Context context, boolean enabled) {
+        sContext = context.getApplicationContext();
+        if (enabled && isEnabled) return;
+
+        isEnabled = enabled;
+        sRecords = null;
+        isClearPending = false;
+        runInBackground(enabled ? new Runnable() {
+            @Override
+            public void run() {
+                load();
+            }
+        } : new Runnable() {
+            @Override
+            public void run() {
+                delete();
+            }
+        });
+    }
+
+    /**
+     * Remove all the records, the file is written on a worker thread.
+     */
+    public static synchronized void clear() {
+        if (sRecords != null) {
+            sRecords.clear();
+            scheduleSave();
+        } else {
+            // It's being loaded, the records are dropped when it's done.
+            isClearPending = isEnabled;
+        }
+    }
+
+    /**
+     * The probe of the permission has passed with the current key.
+     */
+    static boolean isGranted(Context context, String permission) {
+        if (!isEnabled) return false;
+        Map<String, Record> records = sRecords;
+        if (records == null) return false;
+
+        Record record = records.get(permission);
+        if (record == null || Math.abs(System.currentTimeMillis() - record.mTime) >= MAX_AGE) return false;
+        return record.mState == getStandardState(context, permission);
+    }
+
+    /**
+     * Record the result of the probe of the permission, only the granted results are kept. The file is written on a
+     * worker thread.
+     */
+    static void update(Context context, String permission, boolean granted) {
+        if (!isEnabled) return;
+        // A result before the file is loaded is not kept, the load would overwrite it.
+        Map<String, Record> records = sRecords;
+        if (records == null) return;
+
+        if (granted) {
+            int state = getStandardState(context, permission);
+            Record record = records.get(permission);
+            if (record != null && record.mState == state) return;
+            records.put(permission, new Record(state, System.currentTimeMillis()));
+        } else {
+            if (records.remove(permission) == null) return;
+        }
+        scheduleSave();
+    }
+
+    static void remove(String permission) {
+        Map<String, Record> records = sRecords;
+        if (records == null) {
+            // The file can't be edited before it's loaded, all of it is dropped.
+            clear();
+        } else if (records.remove(permission) != null) {
+            scheduleSave();
+        }
+    }
+
+    private static void runInBackground(final Runnable runnable) {
+        new TaskExecutor<Void>() {
+            @Override
+            protected Void doInBackground(Void... voids) {
+                runnable.run();
+                return null;
+            }
+
+            @Override
+            protected void onFinish(Void result) {
+            }
+
+            @Override
+            protected void onError(Throwable e) {
+                // It's only a cache, the probes run without it.
+            }
+        }.execute();
+    }
+
+    /**
+     * Write the records on a worker thread, the changes until it runs are written together.
+     */
+    private static synchronized void scheduleSave() {
+        if (isSavePending) return;
+
+        isSavePending = true;
+        runInBackground(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (ProbeCache.class) {
+                    isSavePending = false;
+                }
+                save();
+            }
+        });
+    }
+
+    /**
+     * Read the file, it runs on a worker thread.
+     */
+    private static void load() {
+        Context context = sContext;
+        Map<String, Record> records = new ConcurrentHashMap<>();
+        long versionCode = getVersionCode(context);
+        synchronized (FILE_LOCK) {
+            read(getFile(context), versionCode, records);
+        }
+        synchronized (ProbeCache.class) {
+            if (!isEnabled || sRecords != null) return;
+            sVersionCode = versionCode;
+            sRecords = records;
+            if (isClearPending) {
+                isClearPending = false;
+                records.clear();
+                scheduleSave();
+            }
+        }
+    }
+
+    private static void read(File file, long versionCode, Map<String, Record> records) {
+        if (!file.exists()) return;
+
+        DataInputStream input = null;
+        try {
+            input = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT_VERSION) return;
+            if (input.readLong() != versionCode) return;
+            if (!TextUtils.equals(input.readUTF(), Build.FINGERPRINT)) return;
+
+            int count = input.readInt();
+            for (int i = 0; i < count; i++) {
+                String permission = input.readUTF();
+                int state = input.readInt();
+                long time = input.readLong();
+                records.put(permission, new Record(state, time));
+            }
+        } catch (IOException e) {
+            records.clear();
+        } finally {
+            closeQuietly(input);
+        }
+    }
+
+    /**
+     * Write the records, it runs on a worker thread.
+     */
+    private static void save() {
+        synchronized (FILE_LOCK) {
+            Map<String, Record> records = sRecords;
+            if (!isEnabled || records == null) return;
+
+            File file = getFile(sContext);
+            File temp = new File(file.getPath() + ".tmp");
+            DataOutputStream output = null;
+            try {
+                Map<String, Record> snapshot = new HashMap<>(records);
+                output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT_VERSION);
+                output.writeLong(sVersionCode);
+                output.writeUTF(Build.FINGERPRINT);
+                output.writeInt(snapshot.size());
+                for (Map.Entry<String, Record> entry : snapshot.entrySet()) {
+                    output.writeUTF(entry.getKey());
+                    output.writeInt(entry.getValue().mState);
+                    output.writeLong(entry.getValue().mTime);
+                }
+                output.close();
+                output = null;
+                if (!temp.renameTo(file)) temp.delete();
+            } catch (IOException e) {
+                temp.delete();
+            } finally {
+                closeQuietly(output);
+            }
+        }
+    }
+
+    /**
+     * Delete the file, it runs on a worker thread.
+     */
+    private static void delete() {
+        synchronized (FILE_LOCK) {
+            if (!isEnabled) getFile(sContext).delete();
+        }
+    }
+
+    /**
+     * The grant state and the {@link AppOpsManager} mode of the permission.
+     */
+    private static int getStandardState(Context context, String permission) {
+        int state = context.checkPermission(permission, android.os.Process.myPid(), android.os.Process.myUid());
+        state = state == PackageManager.PERMISSION_GRANTED ? 1 : 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            String op = AppOpsManager.permissionToOp(permission);
+            if (!TextUtils.isEmpty(op)) {
+                AppOpsManager opsManager = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
+                int mode = opsManager.checkOpNoThrow(op, android.os.Process.myUid(), context.getPackageName());
+                state |= (mode + 1) << 1;
+            }
+        }
+        return state;
+    }
+
+    private static long getVersionCode(Context context) {
+        try {
+            PackageInfo info = context.getPackageManager().getPackageInfo(context.getPackageName(), 0);
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.P) {
+                return info.getLongVersionCode();
+            }
+            return info.versionCode;
+        } catch (PackageManager.NameNotFoundException e) {
+            return -1;
+        }
+    }
+
+    private static File getFile(Context context) {
+        File dir = Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP ? context.getNoBackupFilesDir() :
+            context.getFilesDir();
+        return new File(dir, FILE_NAME);
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) return;
+        try {
+            closeable.close();
+        } catch (IOException ignored) {
+        }
+    }
+
+    private static final class Record {
+
+        private final int mState;
+        private final long mTime;
+
+        private Record(int state, long time) {
+            this.mState = state;
+            this.mTime = time;
+        }
+    }
+
+    private ProbeCache() {
+    }
+}
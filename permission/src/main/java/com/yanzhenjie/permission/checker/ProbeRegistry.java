@@ -0,0 +1,270 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.os.Build;
+
+import com.yanzhenjie.permission.runtime.PermissionTable;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * <p>The probes of {@link StrictChecker}, each one is created on its first check and then reused.</p>
+ * The registrations are kept in the process, register them in {@code Application#onCreate()} to have them in the
+ * probe process as well.
+ */
+public final class ProbeRegistry {
+
+    /**
+     * Creates the probe of a permission.
+     */
+    public interface Factory {
+
+        PermissionTest create();
+    }
+
+    /**
+     * The probes indexed by the {@link PermissionTable} id, the permissions without a probe are granted.
+     */
+    private static final Slot[] SLOTS = new Slot[PermissionTable.COUNT];
+
+    /**
+     * The probes of the permissions which are not in the {@link PermissionTable}.
+     */
+    private static final ConcurrentHashMap<String, Slot> EXTRA_SLOTS = new ConcurrentHashMap<>();
+
+    static {
+        for (int i = 0; i < SLOTS.length; i++) {
+            SLOTS[i] = new Slot(null);
+        }
+        add(PermissionTable.READ_CALENDAR, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new CalendarReadTest();
+            }
+        });
+        add(PermissionTable.WRITE_CALENDAR, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new CalendarWriteTest();
+            }
+        });
+        add(PermissionTable.CAMERA, new Factory() {
+            @Override
+            public PermissionTest create() {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+                    return new Camera2Test();
+                }
+                return new CameraTest();
+            }
+        });
+        add(PermissionTable.READ_CONTACTS, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new ContactsReadTest();
+            }
+        });
+        add(PermissionTable.WRITE_CONTACTS, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new ContactsWriteTest();
+            }
+        });
+        add(PermissionTable.ACCESS_COARSE_LOCATION, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new LocationCoarseTest();
+            }
+        });
+        add(PermissionTable.ACCESS_FINE_LOCATION, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new LocationFineTest();
+            }
+        });
+        add(PermissionTable.RECORD_AUDIO, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new RecordAudioTest();
+            }
+        });
+        add(PermissionTable.READ_PHONE_STATE, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new PhoneStateReadTest();
+            }
+        });
+        add(PermissionTable.READ_CALL_LOG, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new CallLogReadTest();
+            }
+        });
+        add(PermissionTable.WRITE_CALL_LOG, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new CallLogWriteTest();
+            }
+        });
+        add(PermissionTable.USE_SIP, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new SipTest();
+            }
+        });
+        add(PermissionTable.BODY_SENSORS, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new SensorHeartTest();
+            }
+        });
+        add(PermissionTable.ACTIVITY_RECOGNITION, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new SensorActivityTest();
+            }
+        });
+        add(PermissionTable.READ_SMS, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new SmsReadTest();
+            }
+        });
+        add(PermissionTable.READ_EXTERNAL_STORAGE, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new StorageReadTest();
+            }
+        });
+        add(PermissionTable.WRITE_EXTERNAL_STORAGE, new Factory() {
+            @Override
+            public PermissionTest create() {
+                return new StorageWriteTest();
+            }
+        });
+    }
+
+    private static void add(int id, Factory factory) {
+        SLOTS[id] = new Slot(factory);
+    }
+
+    /**
+     * Replace the probe of the permission.
+     *
+     * @param permission the permission.
+     * @param factory creates the probe, it's called once.
+     */
+    public static void register(String permission, Factory factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("The factory cannot be null.");
+        }
+        slotOf(permission, true).setFactory(factory);
+    }
+
+    /**
+     * Replace the probe of the permission on the devices of the manufacturer, it takes precedence over
+     * {@link #register(String, Factory)}.
+     *
+     * @param manufacturer the {@link Build#MANUFACTURER}, case insensitive.
+     * @param permission the permission.
+     * @param factory creates the probe, it's called once.
+     */
+    public static void register(String manufacturer, String permission, Factory factory) {
+        if (factory == null) {
+            throw new IllegalArgumentException("The factory cannot be null.");
+        }
+        if (!Build.MANUFACTURER.equalsIgnoreCase(manufacturer)) return;
+
+        slotOf(permission, true).setVendorFactory(factory);
+    }
+
+    /**
+     * Restore the built-in probe of the permission.
+     */
+    public static void unregister(String permission) {
+        Slot slot = slotOf(permission, false);
+        if (slot != null) slot.reset();
+    }
+
+    /**
+     * Get the probe of the permission.
+     *
+     * @return null if the permission has no probe.
+     */
+    static PermissionTest get(String permission) {
+        Slot slot = slotOf(permission, false);
+        return slot == null ? null : slot.get();
+    }
+
+    private static Slot slotOf(String permission, boolean create) {
+        int id = PermissionTable.idOf(permission);
+        if (id != PermissionTable.UNKNOWN) return SLOTS[id];
+
+        Slot slot = EXTRA_SLOTS.get(permission);
+        if (slot == null && create) {
+            Slot created = new Slot(null);
+            slot = EXTRA_SLOTS.putIfAbsent(permission, created);
+            if (slot == null) slot = created;
+        }
+        return slot;
+    }
+
+    private static final class Slot {
+
+        private final Factory mDefaultFactory;
+        private Factory mFactory;
+        private Factory mVendorFactory;
+        private volatile PermissionTest mTest;
+
+        private Slot(Factory defaultFactory) {
+            this.mDefaultFactory = defaultFactory;
+        }
+
+        PermissionTest get() {
+            PermissionTest test = mTest;
+            if (test != null) return test;
+
+            synchronized (this) {
+                if (mTest == null) {
+                    Factory factory = mVendorFactory != null ? mVendorFactory :
+                        mFactory != null ? mFactory : mDefaultFactory;
+                    if (factory == null) return null;
+                    mTest = factory.create();
+                }
+                return mTest;
+            }
+        }
+
+        synchronized void setFactory(Factory factory) {
+            mFactory = factory;
+            mTest = null;
+        }
+
+        synchronized void setVendorFactory(Factory factory) {
+            mVendorFactory = factory;
+            mTest = null;
+        }
+
+        synchronized void reset() {
+            mFactory = null;
+            mVendorFactory = null;
+            mTest = null;
+        }
+    }
+
+    private ProbeRegistry() {
+    }
+}
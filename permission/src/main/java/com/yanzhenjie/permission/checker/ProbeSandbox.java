@@ -0,0 +1,242 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.app.ActivityManager;
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.os.SystemClock;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * <p>Runs the probes in the {@link ProbeService} process, a probe which hangs or crashes takes down that process
+ * instead of the app.</p>
+ * The watchdog kills the process when a batch passes its deadline, the next batch starts a new one.
+ */
+final class ProbeSandbox {
+
+    static final int MSG_PROBE = 1;
+    static final int MSG_RESULT = 2;
+    static final String KEY_PERMISSIONS = "permissions";
+    static final String KEY_DENIED = "denied";
+
+    private static final String PROCESS_SUFFIX = ":andpermission_probe";
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    private static volatile boolean isEnabled;
+    private static volatile boolean isSandboxProcess;
+
+    private static Connection sConnection;
+    private static Looper sLooper;
+
+    static void setEnabled(boolean enabled) {
+        isEnabled = enabled;
+    }
+
+    /**
+     * This process is the sandbox, its probes run in place.
+     */
+    static void setSandboxProcess() {
+        isSandboxProcess = true;
+    }
+
+    /**
+     * The sandbox can be used on this thread, the binding is delivered on the main thread so it can't wait there.
+     */
+    static boolean isAvailable() {
+        return isEnabled && !isSandboxProcess && Looper.myLooper() != Looper.getMainLooper();
+    }
+
+    /**
+     * Run the probes of the permissions in the sandbox.
+     *
+     * @param timeout the time the batch is allowed to run, including the start of the process.
+     *
+     * @return the denied permissions, null if the sandbox can't be started or the watchdog killed it.
+     */
+    static List<String> probe(Context context, List<String> permissions, long timeout) throws InterruptedException {
+        long deadline = SystemClock.elapsedRealtime() + timeout;
+        Connection connection = connect(context.getApplicationContext());
+        if (connection == null) return null;
+
+        if (!connection.mConnected.await(timeout, TimeUnit.MILLISECONDS)) {
+            disconnect(connection, true);
+            return null;
+        }
+        Messenger service = connection.mService;
+        if (service == null) return null;
+
+        int id = NEXT_ID.incrementAndGet();
+        Batch batch = new Batch();
+        connection.mBatches.put(id, batch);
+        try {
+            Message message = Message.obtain(null, MSG_PROBE, id, 0);
+            Bundle data = new Bundle();
+            data.putStringArrayList(KEY_PERMISSIONS, new ArrayList<>(permissions));
+            message.setData(data);
+            message.replyTo = connection.mReplyTo;
+            try {
+                service.send(message);
+            } catch (RemoteException e) {
+                disconnect(connection, false);
+                return null;
+            }
+
+            long wait = deadline - SystemClock.elapsedRealtime();
+            if (wait > 0 && batch.mLatch.await(wait, TimeUnit.MILLISECONDS)) return batch.mDenied;
+
+            // A probe hangs in the sandbox, its thread can't be stopped.
+            disconnect(connection, true);
+            return null;
+        } finally {
+            connection.mBatches.remove(id);
+        }
+    }
+
+    private static synchronized Connection connect(Context context) {
+        if (sConnection != null) return sConnection;
+
+        if (sLooper == null) {
+            HandlerThread thread = new HandlerThread("AndPermission-Sandbox");
+            thread.start();
+            sLooper = thread.getLooper();
+        }
+        Connection connection = new Connection(context, sLooper);
+        Intent intent = new Intent(context, ProbeService.class);
+        if (!context.bindService(intent, connection, Context.BIND_AUTO_CREATE)) {
+            unbind(connection);
+            return null;
+        }
+        sConnection = connection;
+        return connection;
+    }
+
+    private static void disconnect(Connection connection, boolean kill) {
+        synchronized (ProbeSandbox.class) {
+            if (sConnection != connection) return;
+            sConnection = null;
+        }
+        unbind(connection);
+        for (Batch batch : connection.mBatches.values()) {
+            batch.finish(null);
+        }
+        if (kill) killProcess(connection.mContext);
+    }
+
+    private static void unbind(Connection connection) {
+        try {
+            connection.mContext.unbindService(connection);
+        } catch (IllegalArgumentException ignored) {
+        }
+    }
+
+    private static void killProcess(Context context) {
+        ActivityManager manager = (ActivityManager) context.getSystemService(Context.ACTIVITY_SERVICE);
+        List<ActivityManager.RunningAppProcessInfo> processes = manager.getRunningAppProcesses();
+        if (processes == null) return;
+
+        String processName = context.getPackageName() + PROCESS_SUFFIX;
+        for (ActivityManager.RunningAppProcessInfo process : processes) {
+            if (processName.equals(process.processName)) {
+                android.os.Process.killProcess(process.pid);
+            }
+        }
+    }
+
+    private static final class Connection implements ServiceConnection {
+
+        private final Context mContext;
+        private final Messenger mReplyTo;
+        private final CountDownLatch mConnected = new CountDownLatch(1);
+        private final ConcurrentHashMap<Integer, Batch> mBatches = new ConcurrentHashMap<>();
+        private volatile Messenger mService;
+
+        private Connection(Context context, Looper looper) {
+            this.mContext = context;
+            this.mReplyTo = new Messenger(new ReplyHandler(looper, mBatches));
+        }
+
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder service) {
+            mService = new Messenger(service);
+            mConnected.countDown();
+        }
+
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            // The sandbox has crashed.
+            mService = null;
+            mConnected.countDown();
+            disconnect(this, false);
+        }
+
+        @Override
+        public void onBindingDied(ComponentName name) {
+            onServiceDisconnected(name);
+        }
+    }
+
+    private static final class ReplyHandler extends Handler {
+
+        private final ConcurrentHashMap<Integer, Batch> mBatches;
+
+        private ReplyHandler(Looper looper, ConcurrentHashMap<Integer, Batch> batches) {
+            super(looper);
+            this.mBatches = batches;
+        }
+
+        @Override
+        public void handleMessage(Message msg) {
+            if (msg.what != MSG_RESULT) {
+                super.handleMessage(msg);
+                return;
+            }
+            Batch batch = mBatches.get(msg.arg1);
+            if (batch != null) batch.finish(msg.getData().getStringArrayList(KEY_DENIED));
+        }
+    }
+
+    private static final class Batch {
+
+        private final CountDownLatch mLatch = new CountDownLatch(1);
+        private volatile List<String> mDenied;
+
+        private void finish(List<String> denied) {
+            mDenied = denied;
+            mLatch.countDown();
+        }
+    }
+
+    private ProbeSandbox() {
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * <p>The {@code :andpermission_probe} process of the {@link ProbeSandbox}, it runs the batches of probes one by
+ * one.</p>
+ */
+public class ProbeService extends Service {
+
+    private HandlerThread mThread;
+    private Messenger mMessenger;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        ProbeSandbox.setSandboxProcess();
+        mThread = new HandlerThread("AndPermission-Sandbox");
+        mThread.start();
+        mMessenger = new Messenger(new ProbeHandler(this, mThread.getLooper()));
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return mMessenger.getBinder();
+    }
+
+    @Override
+    public void onDestroy() {
+        mThread.quit();
+        super.onDestroy();
+    }
+
+    private static final class ProbeHandler extends Handler {
+
+        private final Context mContext;
+        private final PermissionChecker mChecker = new StrictChecker();
+
+        private ProbeHandler(Context context, Looper looper) {
+            super(looper);
+            this.mContext = context.getApplicationContext();
+        }
+
+        @Override
+        public void handleMessage(Message msg) {
+            if (msg.what != ProbeSandbox.MSG_PROBE) {
+                super.handleMessage(msg);
+                return;
+            }
+            List<String> permissions = msg.getData().getStringArrayList(ProbeSandbox.KEY_PERMISSIONS);
+            ArrayList<String> denied = new ArrayList<>(0);
+            if (permissions != null) denied.addAll(mChecker.getDeniedPermissions(mContext, permissions));
+            Message reply = Message.obtain(null, ProbeSandbox.MSG_RESULT, msg.arg1, 0);
+            Bundle data = new Bundle();
+            data.putStringArrayList(ProbeSandbox.KEY_DENIED, denied);
+            reply.setData(data);
+            try {
+                msg.replyTo.send(reply);
+            } catch (RemoteException ignored) {
+                // The app has died.
+            }
+        }
+    }
+}
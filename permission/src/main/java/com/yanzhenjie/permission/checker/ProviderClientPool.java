@@ -0,0 +1,172 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.content.ContentProviderClient;
+import android.content.ContentProviderOperation;
+import android.content.ContentProviderResult;
+import android.content.ContentResolver;
+import android.content.OperationApplicationException;
+import android.database.Cursor;
+import android.net.Uri;
+import android.os.Build;
+import android.os.DeadObjectException;
+import android.os.RemoteException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * <p>Shares one unstable {@link ContentProviderClient} of each authority between the probes of a checker pass, the
+ * clients are released when the last pass ends and no probe uses them.</p>
+ */
+public final class ProviderClientPool {
+
+    private static final Map<String, Client> CLIENTS = new HashMap<>();
+    private static int sPasses;
+
+    /**
+     * Begin a checker pass, the probes until the matching {@link #end()} share the clients.
+     */
+    public static synchronized void begin() {
+        sPasses++;
+    }
+
+    /**
+     * End a checker pass.
+     */
+    public static synchronized void end() {
+        if (sPasses == 0) return;
+        sPasses--;
+        if (sPasses > 0) return;
+
+        Iterator<Client> iterator = CLIENTS.values().iterator();
+        while (iterator.hasNext()) {
+            Client client = iterator.next();
+            iterator.remove();
+            client.isRemoved = true;
+            if (client.mUsers == 0) client.release();
+        }
+    }
+
+    /**
+     * Lease the client of the provider, it must be closed after use.
+     */
+    static Lease acquire(ContentResolver resolver, Uri uri) {
+        return new Lease(resolver, obtain(resolver, uri.getAuthority()));
+    }
+
+    private static synchronized Client obtain(ContentResolver resolver, String authority) {
+        if (sPasses == 0 || authority == null) return null;
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.JELLY_BEAN) return null;
+
+        Client client = CLIENTS.get(authority);
+        if (client == null) {
+            ContentProviderClient providerClient = resolver.acquireUnstableContentProviderClient(authority);
+            if (providerClient == null) return null;
+            client = new Client(authority, providerClient);
+            CLIENTS.put(authority, client);
+        }
+        client.mUsers++;
+        return client;
+    }
+
+    private static synchronized void recycle(Client client, boolean dead) {
+        client.mUsers--;
+        if (dead && !client.isRemoved) {
+            CLIENTS.remove(client.mAuthority);
+            client.isRemoved = true;
+        }
+        if (client.isRemoved && client.mUsers == 0) client.release();
+    }
+
+    /**
+     * The provider of a probe, it falls back to the {@link ContentResolver} when there is no client or the provider
+     * has died.
+     */
+    static final class Lease {
+
+        private final ContentResolver mResolver;
+        private Client mClient;
+        private boolean isDead;
+
+        private Lease(ContentResolver resolver, Client client) {
+            this.mResolver = resolver;
+            this.mClient = client;
+        }
+
+        Cursor query(Uri uri, String[] projection, String selection, String[] selectionArgs, String sortOrder) {
+            if (mClient != null) {
+                try {
+                    return mClient.mClient.query(uri, projection, selection, selectionArgs, sortOrder);
+                } catch (RemoteException e) {
+                    onRemoteException(e);
+                }
+            }
+            return mResolver.query(uri, projection, selection, selectionArgs, sortOrder);
+        }
+
+        ContentProviderResult[] applyBatch(String authority, ArrayList<ContentProviderOperation> operations)
+            throws RemoteException, OperationApplicationException {
+            if (mClient != null) {
+                try {
+                    return mClient.mClient.applyBatch(operations);
+                } catch (RemoteException e) {
+                    onRemoteException(e);
+                }
+            }
+            return mResolver.applyBatch(authority, operations);
+        }
+
+        /**
+         * Give the client back to the pool.
+         */
+        void close() {
+            if (mClient != null) {
+                recycle(mClient, isDead);
+                mClient = null;
+            }
+        }
+
+        private void onRemoteException(RemoteException e) {
+            if (e instanceof DeadObjectException) isDead = true;
+            close();
+        }
+    }
+
+    private static final class Client {
+
+        private final String mAuthority;
+        private final ContentProviderClient mClient;
+        private int mUsers;
+        private boolean isRemoved;
+
+        private Client(String authority, ContentProviderClient client) {
+            this.mAuthority = authority;
+            this.mClient = client;
+        }
+
+        @SuppressWarnings("deprecation")
+        private void release() {
+            mClient.release();
+        }
+    }
+
+    private ProviderClientPool() {
+    }
+}
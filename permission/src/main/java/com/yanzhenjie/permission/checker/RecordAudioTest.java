@@ -16,14 +16,11 @@
 package com.yanzhenjie.permission.checker;
 
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.media.AudioFormat;
 import android.media.AudioRecord;
 import android.media.MediaRecorder;
 
-import java.io.File;
-import java.io.FileOutputStream;
-import java.io.IOException;
+import java.nio.ByteBuffer;
 
 /**
  * Created by Zhenjie Yan on 2018/1/14.
@@ -32,24 +29,28 @@ class RecordAudioTest implements PermissionTest {
 
     private static final int[] RATES = new int[]{8000, 11025, 22050, 44100};
 
-    private Context mContext;
+    /**
+     * One frame is enough, the data is discarded, so the probes share the buffer.
+     */
+    private static final ByteBuffer FRAME = ByteBuffer.allocateDirect(4);
 
-    RecordAudioTest(Context context) {
-        this.mContext = context;
-    }
+    /**
+     * The first working rate, channel, format and buffer size, it does not change in the process.
+     */
+    private static volatile int[] sParameters;
 
     @Override
-    public boolean test() throws Throwable {
+    public boolean test(Context context) throws Throwable {
+        if (!existMicrophone(context)) return true;
+
         AudioRecord audioRecord = null;
-        File file = null;
-        FileOutputStream fos = null;
         try {
             int[] params = findAudioParameters();
-            if (params == null) return !existMicrophone(mContext);
+            if (params == null) return !existMicrophone(context);
 
             audioRecord = new AudioRecord(MediaRecorder.AudioSource.MIC, params[0], params[1], params[2], params[3]);
             int state = audioRecord.getState();
-            if (state != AudioRecord.STATE_INITIALIZED) return !existMicrophone(mContext);
+            if (state != AudioRecord.STATE_INITIALIZED) return !existMicrophone(context);
 
             int recordState = audioRecord.getRecordingState();
             if (recordState != AudioRecord.RECORDSTATE_STOPPED) return true;
@@ -57,49 +58,32 @@ class RecordAudioTest implements PermissionTest {
             audioRecord.startRecording();
             if (audioRecord.getRecordingState() != AudioRecord.RECORDSTATE_RECORDING) return true;
 
-            File cacheDir = new File(mContext.getCacheDir(), "_andpermission_audio_record_test_");
-            cacheDir.mkdirs();
-
-            file = new File(cacheDir, Long.toString(System.currentTimeMillis()));
-            if (file.exists()) file.createNewFile();
-
-            fos = new FileOutputStream(file);
-            byte[] buffer = new byte[params[3]];
-
-            int len = audioRecord.read(buffer, 0, params[3]);
-            fos.write(buffer, 0, len);
-            fos.flush();
+            return audioRecord.read(FRAME, getFrameSize(params[1], params[2])) >= 0;
         } catch (Throwable e) {
-            return !existMicrophone(mContext);
+            return !existMicrophone(context);
         } finally {
-            if (fos != null) {
-                try {
-                    fos.close();
-                } catch (IOException ignored) {
-                }
-            }
-            if (file != null && file.exists()) {
-                file.delete();
-            }
             if (audioRecord != null) {
                 audioRecord.release();
             }
         }
-        return true;
     }
 
     public static boolean existMicrophone(Context context) {
-        PackageManager packageManager = context.getPackageManager();
-        return packageManager.hasSystemFeature(PackageManager.FEATURE_MICROPHONE);
+        return DeviceCapabilities.has(context, DeviceCapabilities.MICROPHONE);
     }
 
     public static int[] findAudioParameters() {
+        int[] params = sParameters;
+        if (params != null) return params;
+
         for (int rate : RATES) {
             for (int channel : new int[]{AudioFormat.CHANNEL_IN_MONO, AudioFormat.CHANNEL_IN_STEREO}) {
                 for (int format : new int[]{AudioFormat.ENCODING_PCM_8BIT, AudioFormat.ENCODING_PCM_16BIT}) {
                     int buffer = AudioRecord.getMinBufferSize(rate, channel, format);
                     if (buffer != AudioRecord.ERROR_BAD_VALUE) {
-                        return new int[]{rate, channel, format, buffer};
+                        params = new int[]{rate, channel, format, buffer};
+                        sParameters = params;
+                        return params;
                     }
                 }
             }
@@ -107,4 +91,9 @@ class RecordAudioTest implements PermissionTest {
         return null;
     }
 
-}
\ No newline at end of file
+    private static int getFrameSize(int channel, int format) {
+        int channels = channel == AudioFormat.CHANNEL_IN_STEREO ? 2 : 1;
+        int bytes = format == AudioFormat.ENCODING_PCM_8BIT ? 1 : 2;
+        return channels * bytes;
+    }
+}
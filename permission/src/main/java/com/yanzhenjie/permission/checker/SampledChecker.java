@@ -0,0 +1,59 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.content.Context;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * <p>Runs the {@link DoubleChecker} for a share of the checks, the others use the {@link StandardChecker}.</p>
+ */
+final class SampledChecker implements PermissionChecker {
+
+    private static final PermissionChecker STANDARD_CHECKER = new StandardChecker();
+    private static final PermissionChecker DOUBLE_CHECKER = new DoubleChecker();
+
+    private final float mRate;
+    private final Random mRandom = new Random();
+
+    SampledChecker(float rate) {
+        this.mRate = rate;
+    }
+
+    @Override
+    public boolean hasPermission(Context context, String... permissions) {
+        return hasPermission(context, Arrays.asList(permissions));
+    }
+
+    @Override
+    public boolean hasPermission(Context context, List<String> permissions) {
+        if (mRandom.nextFloat() < mRate) {
+            return DOUBLE_CHECKER.hasPermission(context, permissions);
+        }
+        return STANDARD_CHECKER.hasPermission(context, permissions);
+    }
+
+    @Override
+    public List<String> getDeniedPermissions(Context context, List<String> permissions) {
+        if (mRandom.nextFloat() < mRate) {
+            return DOUBLE_CHECKER.getDeniedPermissions(context, permissions);
+        }
+        return STANDARD_CHECKER.getDeniedPermissions(context, permissions);
+    }
+}
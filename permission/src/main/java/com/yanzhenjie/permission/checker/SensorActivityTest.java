@@ -16,7 +16,6 @@
 package com.yanzhenjie.permission.checker;
 
 import android.content.Context;
-import android.content.pm.PackageManager;
 import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
@@ -27,22 +26,17 @@ import android.hardware.SensorManager;
  */
 class SensorActivityTest implements PermissionTest {
 
-    private Context mContext;
-
-    SensorActivityTest(Context context) {
-        this.mContext = context;
-    }
-
     @Override
-    public boolean test() throws Throwable {
-        SensorManager sensorManager = (SensorManager) mContext.getSystemService(Context.SENSOR_SERVICE);
+    public boolean test(Context context) throws Throwable {
+        if (!DeviceCapabilities.has(context, DeviceCapabilities.SENSOR_STEP_DETECTOR)) return true;
+
+        SensorManager sensorManager = (SensorManager) context.getSystemService(Context.SENSOR_SERVICE);
         try {
             Sensor heartRateSensor = sensorManager.getDefaultSensor(Sensor.TYPE_STEP_DETECTOR);
             sensorManager.registerListener(SENSOR_EVENT_LISTENER, heartRateSensor, 3);
             sensorManager.unregisterListener(SENSOR_EVENT_LISTENER, heartRateSensor);
         } catch (Throwable e) {
-            PackageManager packageManager = mContext.getPackageManager();
-            return !packageManager.hasSystemFeature(PackageManager.FEATURE_SENSOR_STEP_DETECTOR);
+            return false;
         }
         return true;
     }
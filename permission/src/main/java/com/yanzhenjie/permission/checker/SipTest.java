@@ -30,18 +30,12 @@ class SipTest implements PermissionTest {
     private static final String IP = StringUtils.hexToText("3132372E302E302E31");
     private static final String PASSWORD = StringUtils.textToHex("70617373776F7264");
 
-    private Context mContext;
-
-    SipTest(Context context) {
-        this.mContext = context;
-    }
-
     @Override
-    public boolean test() throws Throwable {
-        if (!SipManager.isApiSupported(mContext)) {
+    public boolean test(Context context) throws Throwable {
+        if (!DeviceCapabilities.has(context, DeviceCapabilities.SIP)) {
             return true;
         }
-        SipManager manager = SipManager.newInstance(mContext);
+        SipManager manager = SipManager.newInstance(context);
         if (manager == null) {
             return true;
         }
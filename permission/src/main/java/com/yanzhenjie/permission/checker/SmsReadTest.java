@@ -15,7 +15,6 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.content.ContentResolver;
 import android.content.Context;
 import android.database.Cursor;
 import android.provider.Telephony;
@@ -25,26 +24,24 @@ import android.provider.Telephony;
  */
 class SmsReadTest implements PermissionTest {
 
-    private ContentResolver mResolver;
-
-    SmsReadTest(Context context) {
-        mResolver = context.getContentResolver();
-    }
-
     @Override
-    public boolean test() throws Throwable {
-        String[] projection = new String[] {Telephony.Sms._ID, Telephony.Sms.ADDRESS, Telephony.Sms.PERSON,
-            Telephony.Sms.BODY};
-        Cursor cursor = mResolver.query(Telephony.Sms.CONTENT_URI, projection, null, null, null);
-        if (cursor != null) {
-            try {
-                CursorTest.read(cursor);
-            } finally {
-                cursor.close();
+    public boolean test(Context context) throws Throwable {
+        ProviderClientPool.Lease provider = ProviderClientPool.acquire(context.getContentResolver(),
+            Telephony.Sms.CONTENT_URI);
+        try {
+            Cursor cursor = CursorTest.query(provider, Telephony.Sms.CONTENT_URI, Telephony.Sms._ID);
+            if (cursor != null) {
+                try {
+                    CursorTest.read(cursor);
+                } finally {
+                    cursor.close();
+                }
+                return true;
+            } else {
+                return false;
             }
-            return true;
-        } else {
-            return false;
+        } finally {
+            provider.close();
         }
     }
 }
\ No newline at end of file
@@ -21,7 +21,9 @@ import android.content.pm.PackageManager;
 import android.os.Build;
 import android.text.TextUtils;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -64,4 +66,13 @@ public final class StandardChecker implements PermissionChecker {
         }
         return true;
     }
+
+    @Override
+    public List<String> getDeniedPermissions(Context context, List<String> permissions) {
+        List<String> denied = new ArrayList<>(0);
+        for (String permission : permissions) {
+            if (!hasPermission(context, Collections.singletonList(permission))) denied.add(permission);
+        }
+        return denied;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,47 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.os.Build;
+import android.system.ErrnoException;
+import android.system.Os;
+import android.system.OsConstants;
+
+import java.io.File;
+
+/**
+ * <p>Checks the access of the external storage with one access(2) call, nothing is listed or written.</p>
+ */
+final class StorageAccess {
+
+    /**
+     * The app can read or write the file, a missing file is regarded as accessible.
+     */
+    static boolean canAccess(File file, boolean write) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            try {
+                return Os.access(file.getPath(), write ? OsConstants.W_OK : OsConstants.R_OK);
+            } catch (ErrnoException e) {
+                return e.errno == OsConstants.ENOENT;
+            }
+        }
+        if (!file.exists()) return true;
+        return write ? file.canWrite() : file.canRead();
+    }
+
+    private StorageAccess() {
+    }
+}
@@ -15,187 +15,336 @@
  */
 package com.yanzhenjie.permission.checker;
 
-import android.content.ContentResolver;
 import android.content.Context;
 import android.os.Build;
+import android.os.Looper;
+import android.os.SystemClock;
 
-import com.yanzhenjie.permission.runtime.Permission;
-
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.TimeoutException;
 
 /**
  * Created by Zhenjie Yan on 2018/1/7.
  */
 public final class StrictChecker implements PermissionChecker {
 
-    public StrictChecker() {
-    }
+    /**
+     * Default time each probe is allowed to run, in milliseconds.
+     */
+    public static final long DEFAULT_PROBE_TIMEOUT = 3000;
 
-    @Override
-    public boolean hasPermission(Context context, String... permissions) {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return true;
+    private static final PermissionChecker STANDARD_CHECKER = new StandardChecker();
 
-        for (String permission : permissions) {
-            if (!hasPermission(context, permission)) {
-                return false;
-            }
+    /**
+     * The running probes, concurrent checks of the same permission share one probe.
+     */
+    private static final ConcurrentHashMap<String, Flight> IN_FLIGHT = new ConcurrentHashMap<>();
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
         }
-        return true;
-    }
+    };
 
-    @Override
-    public boolean hasPermission(Context context, List<String> permissions) {
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) return true;
+    private static volatile long sProbeTimeout = DEFAULT_PROBE_TIMEOUT;
+    private static volatile boolean sMainThreadForbidden;
 
-        for (String permission : permissions) {
-            if (!hasPermission(context, permission)) {
-                return false;
-            }
-        }
-        return true;
-    }
+    private static volatile int sSdkInt = Build.VERSION.SDK_INT;
+    private static volatile Clock sClock = SYSTEM_CLOCK;
 
-    private boolean hasPermission(Context context, String permission) {
-        try {
-            switch (permission) {
-                case Permission.READ_CALENDAR:
-                    return checkReadCalendar(context);
-                case Permission.WRITE_CALENDAR:
-                    return checkWriteCalendar(context);
-                case Permission.CAMERA:
-                    return checkCamera(context);
-                case Permission.READ_CONTACTS:
-                    return checkReadContacts(context);
-                case Permission.WRITE_CONTACTS:
-                    return checkWriteContacts(context);
-                case Permission.GET_ACCOUNTS:
-                    return true;
-                case Permission.ACCESS_COARSE_LOCATION:
-                    return checkCoarseLocation(context);
-                case Permission.ACCESS_FINE_LOCATION:
-                    return checkFineLocation(context);
-                case Permission.RECORD_AUDIO:
-                    return checkRecordAudio(context);
-                case Permission.READ_PHONE_STATE:
-                    return checkReadPhoneState(context);
-                case Permission.CALL_PHONE:
-                    return true;
-                case Permission.READ_CALL_LOG:
-                    return checkReadCallLog(context);
-                case Permission.WRITE_CALL_LOG:
-                    return checkWriteCallLog(context);
-                case Permission.ADD_VOICEMAIL:
-                    return true;
-                case Permission.USE_SIP:
-                    return checkSip(context);
-                case Permission.PROCESS_OUTGOING_CALLS:
-                    return true;
-                case Permission.BODY_SENSORS:
-                    return checkSensorHeart(context);
-                case Permission.ACTIVITY_RECOGNITION:
-                    return checkSensorActivity(context);
-                case Permission.SEND_SMS:
-                case Permission.RECEIVE_MMS:
-                    return true;
-                case Permission.READ_SMS:
-                    return checkReadSms(context);
-                case Permission.RECEIVE_WAP_PUSH:
-                case Permission.RECEIVE_SMS:
-                    return true;
-                case Permission.READ_EXTERNAL_STORAGE:
-                    return checkReadStorage();
-                case Permission.WRITE_EXTERNAL_STORAGE:
-                    return checkWriteStorage(context);
-            }
-        } catch (Throwable e) {
-            return false;
+    /**
+     * Set the time each probe is allowed to run, a probe which runs longer falls back to the result of
+     * {@link StandardChecker}. A check waits twice this time at most, the probes still in the queue then fall back
+     * too.
+     *
+     * @param timeout timeout in milliseconds.
+     */
+    public static void setProbeTimeout(long timeout) {
+        if (timeout <= 0) {
+            throw new IllegalArgumentException("The timeout must be greater than 0.");
         }
-        return true;
+        sProbeTimeout = timeout;
     }
 
-    private static boolean checkReadCalendar(Context context) throws Throwable {
-        PermissionTest test = new CalendarReadTest(context);
-        return test.test();
+    /**
+     * Refuse the checks on the main thread, the probes open the camera, record audio and write the providers.
+     * Like {@code StrictMode}, it's recommended in debug builds to find the calls which should use
+     * {@link com.yanzhenjie.permission.AndPermission#checkAsync(Context, String[], com.yanzhenjie.permission.Action)}.
+     *
+     * @param forbidden true to throw {@link IllegalStateException} when a check starts on the main thread.
+     */
+    public static void setMainThreadForbidden(boolean forbidden) {
+        sMainThreadForbidden = forbidden;
     }
 
-    private static boolean checkWriteCalendar(Context context) throws Throwable {
-        PermissionTest test = new CalendarWriteTest(context);
-        return test.test();
+    /**
+     * Run the probes in the {@code :andpermission_probe} process, a probe which hangs or crashes can't take down
+     * the app. A batch which runs longer than the probe timeout of each permission gets the process killed and
+     * falls back to the result of {@link StandardChecker}.
+     * The checks on the main thread still run in this process, the service can't be bound there synchronously.
+     *
+     * @param enabled true to use the probe process, it's disabled by default.
+     */
+    public static void setProbeProcessEnabled(boolean enabled) {
+        ProbeSandbox.setEnabled(enabled);
     }
 
-    private static boolean checkCamera(Context context) throws Throwable {
-        PermissionTest test = new CameraTest(context);
-        return test.test();
+    /**
+     * Take the given system level, the level of the stubs in the unit tests is 0.
+     */
+    static void setSdkInt(int sdkInt) {
+        sSdkInt = sdkInt;
     }
 
-    private static boolean checkReadContacts(Context context) throws Throwable {
-        PermissionTest test = new ContactsReadTest(context);
-        return test.test();
+    /**
+     * Set the clock of the timeouts, the stubs in the unit tests always return 0.
+     *
+     * @param clock null to restore the clock of the system.
+     */
+    static void setClock(Clock clock) {
+        sClock = clock == null ? SYSTEM_CLOCK : clock;
     }
 
-    private static boolean checkWriteContacts(Context context) throws Throwable {
-        ContentResolver resolver = context.getContentResolver();
-        PermissionTest test = new ContactsWriteTest(resolver);
-        return test.test();
+    /**
+     * Get the time of the clock of the timeouts, in milliseconds.
+     */
+    static long elapsedRealtime() {
+        return sClock.elapsedRealtime();
     }
 
-    private static boolean checkCoarseLocation(Context context) throws Throwable {
-        PermissionTest test = new LocationCoarseTest(context);
-        return test.test();
+    public StrictChecker() {
     }
 
-    private static boolean checkFineLocation(Context context) throws Throwable {
-        PermissionTest test = new LocationFineTest(context);
-        return test.test();
+    @Override
+    public boolean hasPermission(Context context, String... permissions) {
+        return hasPermission(context, Arrays.asList(permissions));
     }
 
-    private static boolean checkRecordAudio(Context context) throws Throwable {
-        PermissionTest test = new RecordAudioTest(context);
-        return test.test();
+    @Override
+    public boolean hasPermission(Context context, List<String> permissions) {
+        return check(context, permissions, false).isEmpty();
     }
 
-    private static boolean checkReadPhoneState(Context context) throws Throwable {
-        PermissionTest test = new PhoneStateReadTest(context);
-        return test.test();
+    @Override
+    public List<String> getDeniedPermissions(Context context, List<String> permissions) {
+        return check(context, permissions, true);
     }
 
-    private static boolean checkReadCallLog(Context context) throws Throwable {
-        PermissionTest test = new CallLogReadTest(context);
-        return test.test();
+    /**
+     * @param all false to stop at the first denied permission.
+     */
+    private List<String> check(Context context, List<String> permissions, boolean all) {
+        if (sSdkInt < Build.VERSION_CODES.LOLLIPOP) return new ArrayList<>(0);
+        if (sMainThreadForbidden && Looper.myLooper() == Looper.getMainLooper()) {
+            throw new IllegalStateException("The strict check cannot run on the main thread, use checkAsync().");
+        }
+
+        if (ProbeSandbox.isAvailable()) return probeInSandbox(context, permissions);
+
+        ProviderClientPool.begin();
+        try {
+            return probe(context, permissions, all);
+        } finally {
+            ProviderClientPool.end();
+        }
     }
 
-    private static boolean checkWriteCallLog(Context context) throws Throwable {
-        PermissionTest test = new CallLogWriteTest(context);
-        return test.test();
+    private List<String> probe(Context context, List<String> permissions, boolean all) {
+        List<String> denied = new ArrayList<>(0);
+        List<Flight> flights = new ArrayList<>(permissions.size());
+        List<String> stale = new ArrayList<>(0);
+        for (String permission : permissions) {
+            if (ProbeCache.isGranted(context, permission)) continue;
+            Flight flight = join(context, permission);
+            if (flight == null) {
+                stale.add(permission);
+            } else {
+                flights.add(flight);
+            }
+        }
+
+        long timeout = sProbeTimeout;
+        // The probes queue behind each other when the pool is held by hung ones, the whole check is capped.
+        long deadline = elapsedRealtime() + timeout * 2;
+        int index = 0;
+        try {
+            for (; index < flights.size(); index++) {
+                Flight flight = flights.get(index);
+                boolean granted;
+                try {
+                    granted = flight.mProbe.await(flight, timeout, deadline);
+                    flight.release(false);
+                } catch (TimeoutException e) {
+                    flight.release(true);
+                    granted = STANDARD_CHECKER.hasPermission(context, flight.mPermission);
+                } catch (ExecutionException | CancellationException e) {
+                    flight.release(false);
+                    granted = false;
+                }
+                if (!granted) {
+                    denied.add(flight.mPermission);
+                    if (!all) {
+                        index++;
+                        return denied;
+                    }
+                }
+            }
+            // A probe of these is still hung, the result of the platform is taken like after a timeout.
+            for (String permission : stale) {
+                if (!STANDARD_CHECKER.hasPermission(context, permission)) {
+                    denied.add(permission);
+                    if (!all) return denied;
+                }
+            }
+            return denied;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            // The unanswered permissions are not granted.
+            for (int i = index; i < flights.size(); i++) {
+                denied.add(flights.get(i).mPermission);
+            }
+            denied.addAll(stale);
+            return denied;
+        } finally {
+            for (int i = index; i < flights.size(); i++) {
+                flights.get(i).release(false);
+            }
+        }
     }
 
-    private static boolean checkSip(Context context) throws Throwable {
-        PermissionTest test = new SipTest(context);
-        return test.test();
+    private List<String> probeInSandbox(Context context, List<String> permissions) {
+        List<String> probed = new ArrayList<>(permissions.size());
+        for (String permission : permissions) {
+            if (!ProbeCache.isGranted(context, permission)) probed.add(permission);
+        }
+        if (probed.isEmpty()) return probed;
+
+        List<String> denied;
+        try {
+            denied = ProbeSandbox.probe(context, probed, sProbeTimeout * (probed.size() + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return probed;
+        }
+        if (denied == null) return STANDARD_CHECKER.getDeniedPermissions(context, probed);
+
+        for (String permission : probed) {
+            if (!denied.contains(permission)) ProbeCache.update(context, permission, true);
+        }
+        return denied;
     }
 
-    private static boolean checkSensorHeart(Context context) throws Throwable {
-        PermissionTest test = new SensorHeartTest(context);
-        return test.test();
+    /**
+     * Join the running probe of the permission, or start a new one if there is none.
+     *
+     * @return the flight of the permission, null if its last probe has been cancelled but is still running.
+     */
+    private Flight join(Context context, String permission) {
+        while (true) {
+            Flight flight = IN_FLIGHT.get(permission);
+            if (flight == null) {
+                Flight created = new Flight(new PermissionProbe(context, permission), permission);
+                created.acquire();
+                flight = IN_FLIGHT.putIfAbsent(permission, created);
+                if (flight == null) {
+                    ProbeExecutor.execute(created);
+                    return created;
+                }
+            }
+            if (flight.acquire()) return flight;
+
+            // It has been cancelled by its last caller, a second probe must not run beside the hung one.
+            if (flight.isCancelled() && flight.isStarted) return null;
+            IN_FLIGHT.remove(permission, flight);
+        }
     }
 
-    private static boolean checkSensorActivity(Context context) throws Throwable {
-        PermissionTest test = new SensorActivityTest(context);
-        return test.test();
+    private boolean hasPermission(Context context, String permission) {
+        PermissionTest test = ProbeRegistry.get(permission);
+        if (test == null) return true;
+        try {
+            return test.test(context);
+        } catch (Throwable e) {
+            return false;
+        }
     }
 
-    private static boolean checkReadSms(Context context) throws Throwable {
-        PermissionTest test = new SmsReadTest(context);
-        return test.test();
+    /**
+     * The source of {@link SystemClock#elapsedRealtime()}.
+     */
+    interface Clock {
+
+        long elapsedRealtime();
     }
 
-    private static boolean checkReadStorage() throws Throwable {
-        PermissionTest test = new StorageReadTest();
-        return test.test();
+    private static final class Flight extends FutureTask<Boolean> {
+
+        private final PermissionProbe mProbe;
+        private final String mPermission;
+        private int mCallers;
+        private volatile boolean isStarted;
+
+        private Flight(PermissionProbe probe, String permission) {
+            super(probe);
+            this.mProbe = probe;
+            this.mPermission = permission;
+        }
+
+        /**
+         * Join the probe, a finished one is not joined because its result may be stale.
+         */
+        synchronized boolean acquire() {
+            if (isDone()) return false;
+            mCallers++;
+            return true;
+        }
+
+        /**
+         * The probe is cancelled when the last caller leaves before it finishes.
+         */
+        synchronized void release(boolean interrupt) {
+            mCallers--;
+            if (mCallers == 0 && !isDone()) cancel(interrupt);
+        }
+
+        /**
+         * The flight leaves only when the probe has returned, a cancelled one may still be running.
+         */
+        @Override
+        public void run() {
+            isStarted = true;
+            try {
+                super.run();
+            } finally {
+                IN_FLIGHT.remove(mPermission, this);
+            }
+        }
     }
 
-    private static boolean checkWriteStorage(Context context) throws Throwable {
-        PermissionTest test = new StorageWriteTest(context);
-        return test.test();
+    private final class PermissionProbe extends Probe<Boolean> {
+
+        private final Context mContext;
+        private final String mPermission;
+
+        private PermissionProbe(Context context, String permission) {
+            this.mContext = context;
+            this.mPermission = permission;
+        }
+
+        @Override
+        protected Boolean run() {
+            boolean granted = hasPermission(mContext, mPermission);
+            if (!Thread.currentThread().isInterrupted()) {
+                ProbeCache.update(mContext, mPermission, granted);
+            }
+            return granted;
+        }
     }
-}
\ No newline at end of file
+}
@@ -15,19 +15,15 @@
  */
 package com.yanzhenjie.permission.runtime;
 
-import android.os.Build;
-
 import androidx.annotation.NonNull;
 
 import com.yanzhenjie.permission.Action;
-import com.yanzhenjie.permission.AndPermission;
 import com.yanzhenjie.permission.Rationale;
 import com.yanzhenjie.permission.RequestExecutor;
 import com.yanzhenjie.permission.checker.PermissionChecker;
+import com.yanzhenjie.permission.checker.PermissionStateRegistry;
 import com.yanzhenjie.permission.source.Source;
 
-import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.List;
 
 /**
@@ -78,78 +74,96 @@ abstract class BaseRequest implements PermissionRequest {
         return this;
     }
 
-    protected boolean showRationaleOrNot(List<String> deniedPermissions) {
-        return mRationale != null && !getRationalePermissions(mSource, deniedPermissions).isEmpty();
+    /**
+     * Drop the source and the callbacks, nothing is invoked after this.
+     */
+    final void release() {
+        mSource = null;
+        mRationale = null;
+        mGranted = null;
+        mDenied = null;
+        mAlwaysDenied = null;
+    }
+
+    protected boolean showRationaleOrNot(PermissionSet deniedPermissions) {
+        return mRationale != null && hasRationalePermission(mSource, deniedPermissions);
     }
 
-    protected boolean showAlwaysDeniedOrNot(List<String> deniedPermissions) {
-        return mAlwaysDenied != null && AndPermission.hasAlwaysDeniedPermission(mSource.getContext(), deniedPermissions);
+    protected boolean showAlwaysDeniedOrNot(PermissionSet deniedPermissions) {
+        if (mAlwaysDenied == null) return false;
+        for (String permission : deniedPermissions) {
+            if (!mSource.isShowRationalePermission(permission)) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    final void callbackSucceed(List<String> grantedList) {
+    final void callbackSucceed(PermissionSet grantedSet) {
         if (mGranted != null) {
-            mGranted.onAction(grantedList);
+            mGranted.onAction(grantedSet.toList());
         }
     }
 
-    final void callbackFailed(List<String> deniedList) {
+    final void callbackFailed(PermissionSet deniedSet) {
         if (mDenied != null) {
-            mDenied.onAction(deniedList);
+            mDenied.onAction(deniedSet.toList());
         }
     }
 
-    final void callbackRationale(List<String> rationaleList, RequestExecutor executor) {
+    final void callbackRationale(PermissionSet rationaleSet, RequestExecutor executor) {
         if (mRationale != null) {
-            mRationale.showRationale(mSource.getContext(), rationaleList, executor);
+            mRationale.showRationale(mSource.getContext(), rationaleSet.toList(), executor);
         }
     }
 
-    final void callbackAlwaysDenied(List<String> deniedList) {
+    final void callbackAlwaysDenied(PermissionSet deniedSet) {
         if (mAlwaysDenied != null) {
-            mAlwaysDenied.onAction(deniedList);
+            mAlwaysDenied.onAction(deniedSet.toList());
         }
     }
 
     /**
-     * Filter the permissions you want to apply; remove unsupported and duplicate permissions.
+     * Filter the permissions you want to apply; remove unsupported permissions.
      */
-    public static List<String> filterPermissions(List<String> permissions) {
-        permissions = new ArrayList<>(new HashSet<>(permissions));
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.O) {
-            permissions.remove(Permission.READ_PHONE_NUMBERS);
-            permissions.remove(Permission.ANSWER_PHONE_CALLS);
-        }
+    public static PermissionSet filterPermissions(PermissionSet permissions) {
+        return permissions.filterSupported();
+    }
 
-        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.Q) {
-            permissions.remove(Permission.ACTIVITY_RECOGNITION);
-            permissions.remove(Permission.ACCESS_BACKGROUND_LOCATION);
+    /**
+     * Get denied permissions.
+     */
+    public static PermissionSet getDeniedPermissions(PermissionChecker checker, Source source,
+        PermissionSet permissions) {
+        if (permissions.isEmpty()) return permissions;
+
+        List<String> denied = checker.getDeniedPermissions(source.getContext(), permissions.toList());
+        PermissionSet.Builder deniedSet = new PermissionSet.Builder();
+        for (String permission : denied) {
+            deniedSet.add(permission);
         }
-        return permissions;
+        return deniedSet.build();
     }
 
     /**
-     * Get denied permissions.
+     * Record the verified states of permissions.
      */
-    public static List<String> getDeniedPermissions(PermissionChecker checker, Source source, List<String> permissions) {
-        List<String> deniedList = new ArrayList<>(1);
+    public static void updateStates(PermissionSet permissions, PermissionSet deniedPermissions) {
+        PermissionStateRegistry registry = PermissionStateRegistry.get();
         for (String permission : permissions) {
-            if (!checker.hasPermission(source.getContext(), permission)) {
-                deniedList.add(permission);
-            }
+            registry.update(permission, !deniedPermissions.contains(permission));
         }
-        return deniedList;
     }
 
     /**
-     * Get permissions to show rationale.
+     * Has permissions to show rationale.
      */
-    public static List<String> getRationalePermissions(Source source, List<String> deniedPermissions) {
-        List<String> rationaleList = new ArrayList<>(1);
+    public static boolean hasRationalePermission(Source source, PermissionSet deniedPermissions) {
         for (String permission : deniedPermissions) {
             if (source.isShowRationalePermission(permission)) {
-                rationaleList.add(permission);
+                return true;
             }
         }
-        return rationaleList;
+        return false;
     }
 }
@@ -17,25 +17,22 @@ package com.yanzhenjie.permission.runtime;
 
 import androidx.annotation.NonNull;
 
+import com.yanzhenjie.permission.AndPermission;
 import com.yanzhenjie.permission.checker.PermissionChecker;
-import com.yanzhenjie.permission.checker.StrictChecker;
 import com.yanzhenjie.permission.source.Source;
 import com.yanzhenjie.permission.task.TaskExecutor;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 /**
  * Created by Zhenjie Yan on 2018/1/25.
  */
 class LRequest extends BaseRequest {
 
-    private static final PermissionChecker STRICT_CHECKER = new StrictChecker();
-
     private Source mSource;
 
-    private List<String> mPermissions;
+    private PermissionSet mPermissions;
+
+    private TaskExecutor<PermissionSet> mTask;
+    private volatile boolean isCancelled;
 
     LRequest(Source source) {
         super(source);
@@ -44,38 +41,69 @@ class LRequest extends BaseRequest {
 
     @Override
     public PermissionRequest permission(@NonNull String... permissions) {
-        mPermissions = new ArrayList<>();
-        mPermissions.addAll(Arrays.asList(permissions));
+        mPermissions = PermissionSet.of(permissions);
         return this;
     }
 
     @Override
     public PermissionRequest permission(@NonNull String[]... groups) {
-        mPermissions = new ArrayList<>();
+        PermissionSet.Builder builder = new PermissionSet.Builder();
         for (String[] group : groups) {
-            mPermissions.addAll(Arrays.asList(group));
+            for (String permission : group) {
+                builder.add(permission);
+            }
         }
+        mPermissions = builder.build();
         return this;
     }
 
     @Override
     public void start() {
+        if (isCancelled) return;
         mPermissions = filterPermissions(mPermissions);
 
-        new TaskExecutor<List<String>>() {
+        final PermissionChecker checker = AndPermission.getCheckerPolicy().getVerifier();
+        final Source source = mSource;
+        final PermissionSet permissions = mPermissions;
+        mTask = new TaskExecutor<PermissionSet>() {
             @Override
-            protected List<String> doInBackground(Void... voids) {
-                return getDeniedPermissions(STRICT_CHECKER, mSource, mPermissions);
+            protected PermissionSet doInBackground(Void... voids) {
+                return getDeniedPermissions(checker, source, permissions);
             }
 
             @Override
-            protected void onFinish(List<String> deniedList) {
-                if (deniedList.isEmpty()) {
+            protected void onFinish(PermissionSet deniedSet) {
+                mTask = null;
+                // The host has gone, the callbacks would only keep it alive.
+                if (mSource.isDestroyed()) return;
+
+                updateStates(mPermissions, deniedSet);
+                if (deniedSet.isEmpty()) {
                     callbackSucceed(mPermissions);
                 } else {
-                    callbackFailed(deniedList);
+                    callbackFailed(deniedSet);
                 }
             }
-        }.execute();
+
+            @Override
+            protected void onError(Throwable e) {
+                // The check has failed, none of the permissions is taken as granted.
+                onFinish(permissions);
+            }
+        };
+        mTask.execute();
+    }
+
+    @Override
+    public void cancel() {
+        if (isCancelled) return;
+        isCancelled = true;
+
+        if (mTask != null) {
+            mTask.cancel();
+            mTask = null;
+        }
+        mSource = null;
+        release();
     }
 }
\ No newline at end of file
@@ -15,104 +15,218 @@
  */
 package com.yanzhenjie.permission.runtime;
 
-import android.annotation.SuppressLint;
+import android.content.pm.PackageManager;
 
 import androidx.annotation.NonNull;
 
+import com.yanzhenjie.permission.AndPermission;
 import com.yanzhenjie.permission.RequestExecutor;
 import com.yanzhenjie.permission.bridge.BridgeRequest;
 import com.yanzhenjie.permission.bridge.RequestManager;
-import com.yanzhenjie.permission.checker.DoubleChecker;
+import com.yanzhenjie.permission.checker.CheckerPolicy;
 import com.yanzhenjie.permission.checker.PermissionChecker;
+import com.yanzhenjie.permission.checker.PermissionStateRegistry;
 import com.yanzhenjie.permission.checker.StandardChecker;
 import com.yanzhenjie.permission.source.Source;
 import com.yanzhenjie.permission.task.TaskExecutor;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 /**
  * Created by Zhenjie Yan on 2016/9/9.
  */
 class MRequest extends BaseRequest implements RequestExecutor, BridgeRequest.Callback {
 
     private static final PermissionChecker STANDARD_CHECKER = new StandardChecker();
-    private static final PermissionChecker DOUBLE_CHECKER = new DoubleChecker();
 
+    private final PermissionChecker mPlatformChecker;
     private Source mSource;
 
-    private List<String> mPermissions;
-
-    private List<String> mDeniedPermissions;
+    private PermissionSet mPermissions;
+
+    private PermissionSet mDeniedPermissions;
+
+    private BridgeRequest mRequest;
+    private TaskExecutor<PermissionSet> mTask;
+    private volatile boolean isCancelled;
+
+    /**
+     * Abandons the request when its host is destroyed, the callbacks would only keep the host alive. The dialog of a
+     * host which is recreated for a new configuration is left to be answered.
+     */
+    private final Source.OnDestroyListener mDestroyListener = new Source.OnDestroyListener() {
+        @Override
+        public void onDestroy(boolean changingConfigurations) {
+            if (changingConfigurations) {
+                detach();
+            } else {
+                cancel();
+            }
+        }
+    };
 
     MRequest(Source source) {
+        this(source, STANDARD_CHECKER);
+    }
+
+    /**
+     * @param platformChecker decides which permissions are asked in the dialog.
+     */
+    MRequest(Source source, PermissionChecker platformChecker) {
         super(source);
         this.mSource = source;
+        this.mPlatformChecker = platformChecker;
     }
 
     @Override
     public PermissionRequest permission(@NonNull String... permissions) {
-        mPermissions = new ArrayList<>();
-        mPermissions.addAll(Arrays.asList(permissions));
+        mPermissions = PermissionSet.of(permissions);
         return this;
     }
 
     @Override
     public PermissionRequest permission(@NonNull String[]... groups) {
-        mPermissions = new ArrayList<>();
+        PermissionSet.Builder builder = new PermissionSet.Builder();
         for (String[] group : groups) {
-            mPermissions.addAll(Arrays.asList(group));
+            for (String permission : group) {
+                builder.add(permission);
+            }
         }
+        mPermissions = builder.build();
         return this;
     }
 
     @Override
     public void start() {
+        if (isCancelled) return;
+        mSource.setOnDestroyListener(mDestroyListener);
+
         mPermissions = filterPermissions(mPermissions);
 
-        mDeniedPermissions = getDeniedPermissions(STANDARD_CHECKER, mSource, mPermissions);
-        if (mDeniedPermissions.size() > 0) {
+        mDeniedPermissions = getDeniedPermissions(mPlatformChecker, mSource, mPermissions);
+        if (!mDeniedPermissions.isEmpty()) {
             execute();
         } else {
-            onCallback();
+            onCallback(new String[0], new int[0]);
         }
     }
 
     @Override
     public void execute() {
-        BridgeRequest request = new BridgeRequest(mSource);
-        request.setType(BridgeRequest.TYPE_PERMISSION);
-        request.setPermissions(mDeniedPermissions);
-        request.setCallback(this);
-        RequestManager.get().add(request);
+        if (isCancelled) return;
+
+        mRequest = new BridgeRequest(mSource);
+        mRequest.setType(BridgeRequest.TYPE_PERMISSION);
+        mRequest.setPermissions(mDeniedPermissions.toList());
+        mRequest.setCallback(this);
+        RequestManager.get().add(mRequest);
     }
 
+    /**
+     * Abandon the request, the verification is stopped and no callback is invoked after this. The system dialog
+     * which is showing stays until the user answers it, the answer is dropped.
+     */
     @Override
     public void cancel() {
+        if (isCancelled) return;
+        isCancelled = true;
+
+        if (mSource != null) mSource.setOnDestroyListener(null);
+        if (mRequest != null) {
+            RequestManager.get().cancel(mRequest);
+            mRequest = null;
+        }
+        if (mTask != null) {
+            mTask.cancel();
+            mTask = null;
+        }
+        mSource = null;
+        release();
+    }
+
+    /**
+     * Drop the callbacks but let the dialog finish, the recreated host asks again and finds the answer.
+     */
+    private void detach() {
+        if (isCancelled) return;
+        isCancelled = true;
+
+        if (mRequest != null) {
+            RequestManager.get().detach(mRequest);
+            mRequest = null;
+        }
+        if (mTask != null) {
+            mTask.cancel();
+            mTask = null;
+        }
+        mSource = null;
+        release();
     }
 
-    @SuppressLint("StaticFieldLeak")
     @Override
-    public void onCallback() {
-        new TaskExecutor<List<String>>() {
+    public void onCallback(String[] permissions, int[] grantResults) {
+        if (isCancelled) return;
+        mRequest = null;
+
+        // The platform has answered the permissions in the dialog, only the granted ones need to be verified.
+        PermissionSet.Builder grantedBuilder = new PermissionSet.Builder();
+        PermissionSet.Builder deniedBuilder = new PermissionSet.Builder();
+        for (int i = 0; i < permissions.length && i < grantResults.length; i++) {
+            if (grantResults[i] == PackageManager.PERMISSION_GRANTED) {
+                grantedBuilder.add(permissions[i]);
+            } else {
+                deniedBuilder.add(permissions[i]);
+            }
+        }
+        final PermissionSet platformDenied = deniedBuilder.build().intersect(mPermissions);
+        PermissionSet platformGranted = grantedBuilder.build().intersect(mPermissions).minus(platformDenied);
+
+        final CheckerPolicy policy = AndPermission.getCheckerPolicy();
+        PermissionSet.Builder unansweredBuilder = new PermissionSet.Builder();
+        PermissionStateRegistry registry = PermissionStateRegistry.get();
+        for (String permission : mPermissions.minus(platformGranted).minus(platformDenied)) {
+            if (!policy.isCached() || registry.getState(permission) != PermissionStateRegistry.STATE_GRANTED) {
+                unansweredBuilder.add(permission);
+            }
+        }
+        final PermissionSet verifySet = platformGranted.union(unansweredBuilder.build());
+
+        final Source source = mSource;
+        mTask = new TaskExecutor<PermissionSet>() {
             @Override
-            protected List<String> doInBackground(Void... voids) {
-                return getDeniedPermissions(DOUBLE_CHECKER, mSource, mPermissions);
+            protected PermissionSet doInBackground(Void... voids) {
+                return getDeniedPermissions(policy.getVerifier(), source, verifySet).union(platformDenied);
             }
 
             @Override
-            protected void onFinish(List<String> deniedList) {
-                if (deniedList.isEmpty()) {
+            protected void onFinish(PermissionSet deniedSet) {
+                mTask = null;
+                if (mSource.isDestroyed()) {
+                    cancel();
+                    return;
+                }
+
+                updateStates(verifySet.union(platformDenied), deniedSet);
+                if (!deniedSet.isEmpty() && showRationaleOrNot(deniedSet)) {
+                    // The request goes on if the rationale executes it.
+                    callbackRationale(deniedSet, MRequest.this);
+                    return;
+                }
+
+                mSource.setOnDestroyListener(null);
+                if (deniedSet.isEmpty()) {
                     callbackSucceed(mPermissions);
-                } else if (showRationaleOrNot(deniedList)) {
-                    callbackRationale(deniedList, MRequest.this);
-                } else if (showAlwaysDeniedOrNot(deniedList)) {
-                    callbackAlwaysDenied(deniedList);
+                } else if (showAlwaysDeniedOrNot(deniedSet)) {
+                    callbackAlwaysDenied(deniedSet);
                 } else {
-                    callbackFailed(deniedList);
+                    callbackFailed(deniedSet);
                 }
             }
-        }.execute();
+
+            @Override
+            protected void onError(Throwable e) {
+                // The verification has failed, none of the permissions is taken as granted.
+                onFinish(verifySet.union(platformDenied));
+            }
+        };
+        mTask.execute();
     }
-}
\ No newline at end of file
+}
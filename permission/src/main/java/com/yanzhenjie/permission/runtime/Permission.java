@@ -16,9 +16,6 @@
 package com.yanzhenjie.permission.runtime;
 
 import android.content.Context;
-import android.os.Build;
-
-import com.yanzhenjie.permission.R;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -120,104 +117,18 @@ public class Permission {
      */
     public static List<String> transformText(Context context, List<String> permissions) {
         List<String> textList = new ArrayList<>();
+        boolean[] groups = new boolean[PermissionTable.GROUP_COUNT];
         for (String permission : permissions) {
-            switch (permission) {
-                case Permission.READ_CALENDAR:
-                case Permission.WRITE_CALENDAR: {
-                    String message = context.getString(R.string.permission_name_calendar);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-
-                case Permission.CAMERA: {
-                    String message = context.getString(R.string.permission_name_camera);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.GET_ACCOUNTS:
-                case Permission.READ_CONTACTS:
-                case Permission.WRITE_CONTACTS: {
-                    String message = context.getString(R.string.permission_name_contacts);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.ACCESS_FINE_LOCATION:
-                case Permission.ACCESS_COARSE_LOCATION: {
-                    String message = context.getString(R.string.permission_name_location);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.RECORD_AUDIO: {
-                    String message = context.getString(R.string.permission_name_microphone);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.READ_PHONE_STATE:
-                case Permission.CALL_PHONE:
-                case Permission.ADD_VOICEMAIL:
-                case Permission.USE_SIP:
-                case Permission.READ_PHONE_NUMBERS:
-                case Permission.ANSWER_PHONE_CALLS: {
-                    String message = context.getString(R.string.permission_name_phone);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.READ_CALL_LOG:
-                case Permission.WRITE_CALL_LOG:
-                case Permission.PROCESS_OUTGOING_CALLS: {
-                    int messageId = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ?
-                        R.string.permission_name_call_log : R.string.permission_name_phone;
-                    String message = context.getString(messageId);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.BODY_SENSORS: {
-                    String message = context.getString(R.string.permission_name_sensors);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.ACTIVITY_RECOGNITION: {
-                    String message = context.getString(R.string.permission_name_activity_recognition);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.SEND_SMS:
-                case Permission.RECEIVE_SMS:
-                case Permission.READ_SMS:
-                case Permission.RECEIVE_WAP_PUSH:
-                case Permission.RECEIVE_MMS: {
-                    String message = context.getString(R.string.permission_name_sms);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
-                case Permission.READ_EXTERNAL_STORAGE:
-                case Permission.WRITE_EXTERNAL_STORAGE: {
-                    String message = context.getString(R.string.permission_name_storage);
-                    if (!textList.contains(message)) {
-                        textList.add(message);
-                    }
-                    break;
-                }
+            int id = PermissionTable.idOf(permission);
+            if (id == PermissionTable.UNKNOWN) continue;
+
+            int group = PermissionTable.getGroup(id);
+            if (groups[group]) continue;
+            groups[group] = true;
+
+            String message = context.getString(PermissionTable.getLabel(id));
+            if (!textList.contains(message)) {
+                textList.add(message);
             }
         }
         return textList;
@@ -70,4 +70,14 @@ public interface PermissionRequest {
      * Request permission.
      */
     void start();
+
+    /**
+     * Abandon the request, the check is stopped and no action is invoked after this. A system dialog which is
+     * already showing can't be closed by the app, the answer of the user still changes the permissions but it's
+     * dropped.
+     *
+     * <p>It was added to this interface after its first release, an implementation outside the library must add it
+     * too.</p>
+     */
+    void cancel();
 }
\ No newline at end of file
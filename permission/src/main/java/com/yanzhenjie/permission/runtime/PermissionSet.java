@@ -0,0 +1,213 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.runtime;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * <p>An immutable set of permissions, the {@link PermissionDef} permissions are kept in the bits of a long by
+ * their {@link PermissionTable} id, the others are kept in an array.</p>
+ */
+public final class PermissionSet implements Iterable<String> {
+
+    private static final String[] NO_EXTRAS = new String[0];
+
+    public static final PermissionSet EMPTY = new PermissionSet(0, NO_EXTRAS);
+
+    public static PermissionSet of(String... permissions) {
+        Builder builder = new Builder();
+        for (String permission : permissions) {
+            builder.add(permission);
+        }
+        return builder.build();
+    }
+
+    public static PermissionSet of(Collection<String> permissions) {
+        Builder builder = new Builder();
+        for (String permission : permissions) {
+            builder.add(permission);
+        }
+        return builder.build();
+    }
+
+    private final long mMask;
+    private final String[] mExtras;
+
+    private PermissionSet(long mask, String[] extras) {
+        this.mMask = mask;
+        this.mExtras = extras;
+    }
+
+    public boolean contains(String permission) {
+        int id = PermissionTable.idOf(permission);
+        if (id != PermissionTable.UNKNOWN) return (mMask & (1L << id)) != 0;
+        return indexOf(mExtras, permission) >= 0;
+    }
+
+    public int size() {
+        return Long.bitCount(mMask) + mExtras.length;
+    }
+
+    public boolean isEmpty() {
+        return mMask == 0 && mExtras.length == 0;
+    }
+
+    /**
+     * The permissions in this set or in the other one.
+     */
+    public PermissionSet union(PermissionSet other) {
+        if (other.mExtras.length == 0) return create(mMask | other.mMask, mExtras);
+        if (mExtras.length == 0) return create(mMask | other.mMask, other.mExtras);
+
+        List<String> extras = new ArrayList<>(mExtras.length + other.mExtras.length);
+        for (String extra : mExtras) {
+            extras.add(extra);
+        }
+        for (String extra : other.mExtras) {
+            if (!extras.contains(extra)) extras.add(extra);
+        }
+        return create(mMask | other.mMask, extras.toArray(new String[extras.size()]));
+    }
+
+    /**
+     * The permissions in this set but not in the other one.
+     */
+    public PermissionSet minus(PermissionSet other) {
+        return create(mMask & ~other.mMask, filterExtras(other, false));
+    }
+
+    /**
+     * The permissions in both this set and the other one.
+     */
+    public PermissionSet intersect(PermissionSet other) {
+        return create(mMask & other.mMask, filterExtras(other, true));
+    }
+
+    /**
+     * Remove the permissions which cannot be requested on the current system.
+     */
+    PermissionSet filterSupported() {
+        return create(mMask & PermissionTable.getSupportedMask(), mExtras);
+    }
+
+    /**
+     * Create a new list of the permissions, for the callbacks.
+     */
+    public List<String> toList() {
+        List<String> list = new ArrayList<>(size());
+        for (String permission : this) {
+            list.add(permission);
+        }
+        return list;
+    }
+
+    public String[] toArray() {
+        String[] array = new String[size()];
+        int index = 0;
+        for (String permission : this) {
+            array[index++] = permission;
+        }
+        return array;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+            private long mRemaining = mMask;
+            private int mExtraIndex;
+
+            @Override
+            public boolean hasNext() {
+                return mRemaining != 0 || mExtraIndex < mExtras.length;
+            }
+
+            @Override
+            public String next() {
+                if (mRemaining != 0) {
+                    int id = Long.numberOfTrailingZeros(mRemaining);
+                    mRemaining &= mRemaining - 1;
+                    return PermissionTable.getName(id);
+                }
+                if (mExtraIndex < mExtras.length) return mExtras[mExtraIndex++];
+                throw new NoSuchElementException();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+
+    private String[] filterExtras(PermissionSet other, boolean retain) {
+        if (mExtras.length == 0) return NO_EXTRAS;
+
+        List<String> extras = new ArrayList<>(mExtras.length);
+        for (String extra : mExtras) {
+            if ((indexOf(other.mExtras, extra) >= 0) == retain) extras.add(extra);
+        }
+        return extras.isEmpty() ? NO_EXTRAS : extras.toArray(new String[extras.size()]);
+    }
+
+    private PermissionSet create(long mask, String[] extras) {
+        if (mask == mMask && extras == mExtras) return this;
+        if (mask == 0 && extras.length == 0) return EMPTY;
+        return new PermissionSet(mask, extras);
+    }
+
+    private static int indexOf(String[] array, String permission) {
+        for (int i = 0; i < array.length; i++) {
+            if (array[i].equals(permission)) return i;
+        }
+        return -1;
+    }
+
+    public static final class Builder {
+
+        private long mMask;
+        private List<String> mExtras;
+
+        public Builder() {
+        }
+
+        public Builder add(String permission) {
+            int id = PermissionTable.idOf(permission);
+            if (id != PermissionTable.UNKNOWN) {
+                mMask |= 1L << id;
+            } else {
+                if (mExtras == null) mExtras = new ArrayList<>(1);
+                if (!mExtras.contains(permission)) mExtras.add(permission);
+            }
+            return this;
+        }
+
+        public PermissionSet build() {
+            if (mExtras == null) {
+                return mMask == 0 ? EMPTY : new PermissionSet(mMask, NO_EXTRAS);
+            }
+            return new PermissionSet(mMask, mExtras.toArray(new String[mExtras.size()]));
+        }
+    }
+}
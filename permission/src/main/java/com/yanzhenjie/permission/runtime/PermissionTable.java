@@ -0,0 +1,214 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.runtime;
+
+import android.os.Build;
+
+import androidx.annotation.StringRes;
+
+import com.yanzhenjie.permission.R;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * <p>The facts of every {@link PermissionDef} permission, indexed by a small id.</p>
+ */
+public final class PermissionTable {
+
+    public static final int UNKNOWN = -1;
+
+    public static final int READ_CALENDAR = 0;
+    public static final int WRITE_CALENDAR = 1;
+    public static final int CAMERA = 2;
+    public static final int READ_CONTACTS = 3;
+    public static final int WRITE_CONTACTS = 4;
+    public static final int GET_ACCOUNTS = 5;
+    public static final int ACCESS_FINE_LOCATION = 6;
+    public static final int ACCESS_COARSE_LOCATION = 7;
+    public static final int ACCESS_BACKGROUND_LOCATION = 8;
+    public static final int RECORD_AUDIO = 9;
+    public static final int READ_PHONE_STATE = 10;
+    public static final int CALL_PHONE = 11;
+    public static final int ADD_VOICEMAIL = 12;
+    public static final int USE_SIP = 13;
+    public static final int READ_PHONE_NUMBERS = 14;
+    public static final int ANSWER_PHONE_CALLS = 15;
+    public static final int READ_CALL_LOG = 16;
+    public static final int WRITE_CALL_LOG = 17;
+    public static final int PROCESS_OUTGOING_CALLS = 18;
+    public static final int BODY_SENSORS = 19;
+    public static final int ACTIVITY_RECOGNITION = 20;
+    public static final int SEND_SMS = 21;
+    public static final int RECEIVE_SMS = 22;
+    public static final int READ_SMS = 23;
+    public static final int RECEIVE_WAP_PUSH = 24;
+    public static final int RECEIVE_MMS = 25;
+    public static final int READ_EXTERNAL_STORAGE = 26;
+    public static final int WRITE_EXTERNAL_STORAGE = 27;
+
+    /**
+     * The count of the ids.
+     */
+    public static final int COUNT = 28;
+
+    public static final int GROUP_CALENDAR = 0;
+    public static final int GROUP_CAMERA = 1;
+    public static final int GROUP_CONTACTS = 2;
+    public static final int GROUP_LOCATION = 3;
+    public static final int GROUP_MICROPHONE = 4;
+    public static final int GROUP_PHONE = 5;
+    public static final int GROUP_CALL_LOG = 6;
+    public static final int GROUP_SENSORS = 7;
+    public static final int GROUP_ACTIVITY_RECOGNITION = 8;
+    public static final int GROUP_SMS = 9;
+    public static final int GROUP_STORAGE = 10;
+
+    /**
+     * The count of the groups.
+     */
+    public static final int GROUP_COUNT = 11;
+
+    private static final String[] NAMES = new String[COUNT];
+    private static final int[] GROUPS = new int[COUNT];
+    private static final int[] MIN_SDKS = new int[COUNT];
+    private static final int[] MAX_SDKS = new int[COUNT];
+    private static final int[] GROUP_LABELS = new int[GROUP_COUNT];
+    private static final Map<String, Integer> IDS = new HashMap<>(COUNT * 2);
+
+    private static int sSdkInt = Build.VERSION.SDK_INT;
+    private static long sSupportedMask;
+
+    static {
+        put(READ_CALENDAR, Permission.READ_CALENDAR, GROUP_CALENDAR, 1);
+        put(WRITE_CALENDAR, Permission.WRITE_CALENDAR, GROUP_CALENDAR, 1);
+        put(CAMERA, Permission.CAMERA, GROUP_CAMERA, 1);
+        put(READ_CONTACTS, Permission.READ_CONTACTS, GROUP_CONTACTS, 1);
+        put(WRITE_CONTACTS, Permission.WRITE_CONTACTS, GROUP_CONTACTS, 1);
+        put(GET_ACCOUNTS, Permission.GET_ACCOUNTS, GROUP_CONTACTS, 1);
+        put(ACCESS_FINE_LOCATION, Permission.ACCESS_FINE_LOCATION, GROUP_LOCATION, 1);
+        put(ACCESS_COARSE_LOCATION, Permission.ACCESS_COARSE_LOCATION, GROUP_LOCATION, 1);
+        put(ACCESS_BACKGROUND_LOCATION, Permission.ACCESS_BACKGROUND_LOCATION, GROUP_LOCATION, Build.VERSION_CODES.Q);
+        put(RECORD_AUDIO, Permission.RECORD_AUDIO, GROUP_MICROPHONE, 1);
+        put(READ_PHONE_STATE, Permission.READ_PHONE_STATE, GROUP_PHONE, 1);
+        put(CALL_PHONE, Permission.CALL_PHONE, GROUP_PHONE, 1);
+        put(ADD_VOICEMAIL, Permission.ADD_VOICEMAIL, GROUP_PHONE, 1);
+        put(USE_SIP, Permission.USE_SIP, GROUP_PHONE, 1);
+        put(READ_PHONE_NUMBERS, Permission.READ_PHONE_NUMBERS, GROUP_PHONE, Build.VERSION_CODES.O);
+        put(ANSWER_PHONE_CALLS, Permission.ANSWER_PHONE_CALLS, GROUP_PHONE, Build.VERSION_CODES.O);
+        put(READ_CALL_LOG, Permission.READ_CALL_LOG, GROUP_CALL_LOG, 1);
+        put(WRITE_CALL_LOG, Permission.WRITE_CALL_LOG, GROUP_CALL_LOG, 1);
+        put(PROCESS_OUTGOING_CALLS, Permission.PROCESS_OUTGOING_CALLS, GROUP_CALL_LOG, 1);
+        put(BODY_SENSORS, Permission.BODY_SENSORS, GROUP_SENSORS, 1);
+        put(ACTIVITY_RECOGNITION, Permission.ACTIVITY_RECOGNITION, GROUP_ACTIVITY_RECOGNITION, Build.VERSION_CODES.Q);
+        put(SEND_SMS, Permission.SEND_SMS, GROUP_SMS, 1);
+        put(RECEIVE_SMS, Permission.RECEIVE_SMS, GROUP_SMS, 1);
+        put(READ_SMS, Permission.READ_SMS, GROUP_SMS, 1);
+        put(RECEIVE_WAP_PUSH, Permission.RECEIVE_WAP_PUSH, GROUP_SMS, 1);
+        put(RECEIVE_MMS, Permission.RECEIVE_MMS, GROUP_SMS, 1);
+        put(READ_EXTERNAL_STORAGE, Permission.READ_EXTERNAL_STORAGE, GROUP_STORAGE, 1);
+        put(WRITE_EXTERNAL_STORAGE, Permission.WRITE_EXTERNAL_STORAGE, GROUP_STORAGE, 1);
+
+        GROUP_LABELS[GROUP_CALENDAR] = R.string.permission_name_calendar;
+        GROUP_LABELS[GROUP_CAMERA] = R.string.permission_name_camera;
+        GROUP_LABELS[GROUP_CONTACTS] = R.string.permission_name_contacts;
+        GROUP_LABELS[GROUP_LOCATION] = R.string.permission_name_location;
+        GROUP_LABELS[GROUP_MICROPHONE] = R.string.permission_name_microphone;
+        GROUP_LABELS[GROUP_PHONE] = R.string.permission_name_phone;
+        // The call log was a part of the phone group before Android 10.
+        GROUP_LABELS[GROUP_CALL_LOG] = Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q ?
+            R.string.permission_name_call_log : R.string.permission_name_phone;
+        GROUP_LABELS[GROUP_SENSORS] = R.string.permission_name_sensors;
+        GROUP_LABELS[GROUP_ACTIVITY_RECOGNITION] = R.string.permission_name_activity_recognition;
+        GROUP_LABELS[GROUP_SMS] = R.string.permission_name_sms;
+        GROUP_LABELS[GROUP_STORAGE] = R.string.permission_name_storage;
+
+        sSupportedMask = computeSupportedMask();
+    }
+
+    private static void put(int id, String name, int group, int minSdk) {
+        NAMES[id] = name;
+        GROUPS[id] = group;
+        MIN_SDKS[id] = minSdk;
+        MAX_SDKS[id] = Integer.MAX_VALUE;
+        IDS.put(name, id);
+    }
+
+    /**
+     * Get the id of the permission.
+     *
+     * @return the id, or {@link #UNKNOWN} if it's not a {@link PermissionDef} permission.
+     */
+    public static int idOf(String permission) {
+        Integer id = IDS.get(permission);
+        return id == null ? UNKNOWN : id;
+    }
+
+    /**
+     * Get the permission of the id.
+     */
+    public static String getName(int id) {
+        return NAMES[id];
+    }
+
+    /**
+     * Get the group of the id.
+     */
+    public static int getGroup(int id) {
+        return GROUPS[id];
+    }
+
+    /**
+     * Get the label resource of the group which the id belongs to.
+     */
+    @StringRes
+    public static int getLabel(int id) {
+        return GROUP_LABELS[GROUPS[id]];
+    }
+
+    /**
+     * The permission of the id can be requested on the current system.
+     */
+    public static boolean isSupported(int id) {
+        return sSdkInt >= MIN_SDKS[id] && sSdkInt <= MAX_SDKS[id];
+    }
+
+    /**
+     * Get the mask of the ids which can be requested on the current system.
+     */
+    static long getSupportedMask() {
+        return sSupportedMask;
+    }
+
+    /**
+     * Take the permissions of the given system level as supported, the level of the stubs in the unit tests is 0.
+     */
+    static void setSdkInt(int sdkInt) {
+        sSdkInt = sdkInt;
+        sSupportedMask = computeSupportedMask();
+    }
+
+    private static long computeSupportedMask() {
+        long mask = 0;
+        for (int id = 0; id < COUNT; id++) {
+            if (isSupported(id)) mask |= 1L << id;
+        }
+        return mask;
+    }
+
+    private PermissionTable() {
+    }
+}
@@ -26,10 +26,14 @@ import com.yanzhenjie.permission.runtime.option.RuntimeOption;
 import com.yanzhenjie.permission.runtime.setting.AllRequest;
 import com.yanzhenjie.permission.runtime.setting.SettingRequest;
 import com.yanzhenjie.permission.source.Source;
+import com.yanzhenjie.permission.task.TaskExecutor;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Created by Zhenjie Yan on 2018/5/2.
@@ -38,8 +42,17 @@ public class Runtime implements RuntimeOption {
 
     private static final String ADD_VOICEMAIL_MANIFEST = "android.permission.ADD_VOICEMAIL";
 
+    /**
+     * Generated by manifest-index.gradle.
+     */
+    private static final String GENERATED_INDEX = "com.yanzhenjie.permission.generated.ManifestPermissions";
+
     private static final PermissionRequestFactory FACTORY;
-    private static List<String> sAppPermissions;
+
+    /**
+     * The permissions in the manifest, it's immutable once published.
+     */
+    private static volatile Set<String> sManifestPermissions;
 
     static {
         if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
@@ -73,7 +86,6 @@ public class Runtime implements RuntimeOption {
     public PermissionRequest permission(@NonNull String[]... groups) {
         List<String> permissionList = new ArrayList<>();
         for (String[] group : groups) {
-            checkPermissions(group);
             permissionList.addAll(Arrays.asList(group));
         }
         String[] permissions = permissionList.toArray(new String[0]);
@@ -92,24 +104,72 @@ public class Runtime implements RuntimeOption {
      * @param permissions permissions which will be checked.
      */
     private void checkPermissions(String... permissions) {
-        if (sAppPermissions == null) {
-            sAppPermissions = new ArrayList<>(getManifestPermissions(mSource.getContext()));
-            if (sAppPermissions.contains(ADD_VOICEMAIL_MANIFEST)) {
-                sAppPermissions.add(Permission.ADD_VOICEMAIL);
-            }
-        }
-
         if (permissions.length == 0) {
             throw new IllegalArgumentException("Please enter at least one permission.");
         }
 
+        Set<String> manifestPermissions = getManifestIndex(mSource.getContext());
         for (String target : permissions) {
-            if (!sAppPermissions.contains(target)) {
+            if (!manifestPermissions.contains(target)) {
                 throw new IllegalStateException(String.format("The permission %1$s is not registered in manifest.xml", target));
             }
         }
     }
 
+    /**
+     * Load the permissions of the manifest on a background thread, then the first request does not wait for the
+     * {@link PackageManager}.
+     *
+     * @param context {@link Context}.
+     */
+    public static void warmUp(Context context) {
+        if (sManifestPermissions != null) return;
+
+        final Context appContext = context.getApplicationContext();
+        new TaskExecutor<Void>() {
+            @Override
+            protected Void doInBackground(Void... voids) {
+                try {
+                    getManifestIndex(appContext);
+                } catch (Throwable ignored) {
+                    // It will be thrown again by the request.
+                }
+                return null;
+            }
+
+            @Override
+            protected void onFinish(Void result) {
+            }
+        }.execute();
+    }
+
+    private static Set<String> getManifestIndex(Context context) {
+        Set<String> index = sManifestPermissions;
+        if (index == null) {
+            List<String> generated = getGeneratedPermissions();
+            Set<String> permissions = new HashSet<>(generated != null ? generated : getManifestPermissions(context));
+            if (permissions.contains(ADD_VOICEMAIL_MANIFEST)) {
+                permissions.add(Permission.ADD_VOICEMAIL);
+            }
+            index = Collections.unmodifiableSet(permissions);
+            sManifestPermissions = index;
+        }
+        return index;
+    }
+
+    /**
+     * Get the permissions of the build-time index, or null if the index is not generated.
+     */
+    private static List<String> getGeneratedPermissions() {
+        try {
+            Class<?> index = Class.forName(GENERATED_INDEX);
+            String[] permissions = (String[]) index.getField("PERMISSIONS").get(null);
+            return permissions == null || permissions.length == 0 ? null : Arrays.asList(permissions);
+        } catch (ClassNotFoundException | NoSuchFieldException | IllegalAccessException e) {
+            return null;
+        }
+    }
+
     /**
      * Get a list of permissions in the manifest.
      */
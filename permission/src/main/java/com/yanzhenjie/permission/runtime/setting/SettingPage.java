@@ -15,13 +15,17 @@
  */
 package com.yanzhenjie.permission.runtime.setting;
 
+import android.app.Activity;
+import android.app.Application;
 import android.content.Context;
 import android.content.Intent;
 import android.content.pm.PackageManager;
 import android.net.Uri;
 import android.os.Build;
+import android.os.Bundle;
 import android.provider.Settings;
 
+import com.yanzhenjie.permission.checker.PermissionStateRegistry;
 import com.yanzhenjie.permission.source.Source;
 
 /**
@@ -63,6 +67,8 @@ public class SettingPage {
             intent = defaultApi(mSource.getContext());
             mSource.startActivityForResult(intent, requestCode);
         }
+        PermissionStateRegistry.get().invalidate();
+        ComebackWatcher.watch(mSource.getContext());
     }
 
     private static Intent defaultApi(Context context) {
@@ -130,4 +136,70 @@ public class SettingPage {
         PackageManager packageManager = context.getPackageManager();
         return packageManager.queryIntentActivities(intent, PackageManager.MATCH_DEFAULT_ONLY).size() > 0;
     }
+
+    /**
+     * The user may change any permission in the setting page, forget the verified states when the app comes back.
+     */
+    private static class ComebackWatcher implements Application.ActivityLifecycleCallbacks {
+
+        /**
+         * The registered watcher, the pages started before the comeback share it.
+         */
+        private static ComebackWatcher sWatcher;
+
+        static void watch(Context context) {
+            if (sWatcher != null) {
+                sWatcher.isPaused = false;
+                return;
+            }
+
+            Context appContext = context.getApplicationContext();
+            if (appContext instanceof Application) {
+                Application application = (Application) appContext;
+                sWatcher = new ComebackWatcher(application);
+                application.registerActivityLifecycleCallbacks(sWatcher);
+            }
+        }
+
+        private final Application mApplication;
+        private boolean isPaused;
+
+        private ComebackWatcher(Application application) {
+            this.mApplication = application;
+        }
+
+        @Override
+        public void onActivityPaused(Activity activity) {
+            isPaused = true;
+        }
+
+        @Override
+        public void onActivityResumed(Activity activity) {
+            if (isPaused) {
+                PermissionStateRegistry.get().invalidate();
+                mApplication.unregisterActivityLifecycleCallbacks(this);
+                sWatcher = null;
+            }
+        }
+
+        @Override
+        public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+        }
+
+        @Override
+        public void onActivityStarted(Activity activity) {
+        }
+
+        @Override
+        public void onActivityStopped(Activity activity) {
+        }
+
+        @Override
+        public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+        }
+
+        @Override
+        public void onActivityDestroyed(Activity activity) {
+        }
+    }
 }
\ No newline at end of file
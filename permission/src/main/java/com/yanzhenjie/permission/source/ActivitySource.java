@@ -20,37 +20,69 @@ import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 
+import java.lang.ref.WeakReference;
+
 /**
  * <p>Context Wrapper.</p>
  * Created by Zhenjie Yan on 2017/5/1.
  */
 public class ActivitySource extends Source {
 
-    private Activity mActivity;
+    private final Context mApplicationContext;
+    private final WeakReference<Activity> mActivity;
+    private ActivityWatcher mWatcher;
 
     public ActivitySource(Activity activity) {
-        this.mActivity = activity;
+        this.mApplicationContext = activity.getApplicationContext();
+        this.mActivity = new WeakReference<>(activity);
     }
 
     @Override
     public Context getContext() {
-        return mActivity;
+        Activity activity = mActivity.get();
+        return activity != null ? activity : mApplicationContext;
     }
 
     @Override
     public void startActivity(Intent intent) {
-        mActivity.startActivity(intent);
+        Activity activity = mActivity.get();
+        if (activity != null) activity.startActivity(intent);
     }
 
     @Override
     public void startActivityForResult(Intent intent, int requestCode) {
-        mActivity.startActivityForResult(intent, requestCode);
+        Activity activity = mActivity.get();
+        if (activity != null) activity.startActivityForResult(intent, requestCode);
     }
 
     @Override
     public boolean isShowRationalePermission(String permission) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return false;
 
-        return mActivity.shouldShowRequestPermissionRationale(permission);
+        Activity activity = mActivity.get();
+        return activity != null && activity.shouldShowRequestPermissionRationale(permission);
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        Activity activity = mActivity.get();
+        if (activity == null) return true;
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR1 && activity.isDestroyed();
+    }
+
+    @Override
+    public void setOnDestroyListener(OnDestroyListener listener) {
+        if (mWatcher != null) {
+            mWatcher.stop();
+            mWatcher = null;
+        }
+        if (listener == null) return;
+
+        Activity activity = mActivity.get();
+        if (activity == null || isDestroyed()) {
+            listener.onDestroy(false);
+            return;
+        }
+        mWatcher = ActivityWatcher.watch(activity, listener);
     }
 }
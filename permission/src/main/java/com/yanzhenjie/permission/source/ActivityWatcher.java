@@ -0,0 +1,80 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.source;
+
+import android.app.Activity;
+import android.app.Application;
+import android.os.Bundle;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * <p>Tells the listener when the activity is destroyed, it does not keep the activity alive.</p>
+ */
+final class ActivityWatcher implements Application.ActivityLifecycleCallbacks {
+
+    static ActivityWatcher watch(Activity activity, Source.OnDestroyListener listener) {
+        ActivityWatcher watcher = new ActivityWatcher(activity, listener);
+        watcher.mApplication.registerActivityLifecycleCallbacks(watcher);
+        return watcher;
+    }
+
+    private final Application mApplication;
+    private final WeakReference<Activity> mActivity;
+    private final Source.OnDestroyListener mListener;
+
+    private ActivityWatcher(Activity activity, Source.OnDestroyListener listener) {
+        this.mApplication = activity.getApplication();
+        this.mActivity = new WeakReference<>(activity);
+        this.mListener = listener;
+    }
+
+    void stop() {
+        mApplication.unregisterActivityLifecycleCallbacks(this);
+    }
+
+    @Override
+    public void onActivityDestroyed(Activity activity) {
+        if (activity == mActivity.get()) {
+            stop();
+            mListener.onDestroy(activity.isChangingConfigurations());
+        }
+    }
+
+    @Override
+    public void onActivityCreated(Activity activity, Bundle savedInstanceState) {
+    }
+
+    @Override
+    public void onActivityStarted(Activity activity) {
+    }
+
+    @Override
+    public void onActivityResumed(Activity activity) {
+    }
+
+    @Override
+    public void onActivityPaused(Activity activity) {
+    }
+
+    @Override
+    public void onActivityStopped(Activity activity) {
+    }
+
+    @Override
+    public void onActivitySaveInstanceState(Activity activity, Bundle outState) {
+    }
+}
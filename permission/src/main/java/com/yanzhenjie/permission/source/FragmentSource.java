@@ -15,41 +15,88 @@
  */
 package com.yanzhenjie.permission.source;
 
+import android.app.Activity;
 import android.app.Fragment;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 
+import java.lang.ref.WeakReference;
+
 /**
  * <p>android.app.Fragment Wrapper.</p>
+ * The fragment is watched by the lifecycle callbacks of its manager from Android 8.0, the destruction of its
+ * activity is watched before.
  * Created by Zhenjie Yan on 2017/5/1.
  */
 public class FragmentSource extends Source {
 
-    private Fragment mFragment;
+    private final Context mApplicationContext;
+    private final WeakReference<Fragment> mFragment;
+    private ActivityWatcher mActivityWatcher;
+    private FragmentWatcher mFragmentWatcher;
 
     public FragmentSource(Fragment fragment) {
-        this.mFragment = fragment;
+        Activity activity = fragment.getActivity();
+        this.mApplicationContext = activity == null ? null : activity.getApplicationContext();
+        this.mFragment = new WeakReference<>(fragment);
     }
 
     @Override
     public Context getContext() {
-        return mFragment.getActivity();
+        Fragment fragment = mFragment.get();
+        Context context = fragment == null ? null : fragment.getActivity();
+        return context != null ? context : mApplicationContext;
     }
 
     @Override
     public void startActivity(Intent intent) {
-        mFragment.startActivity(intent);
+        Fragment fragment = mFragment.get();
+        if (fragment != null) fragment.startActivity(intent);
     }
 
     @Override
     public void startActivityForResult(Intent intent, int requestCode) {
-        mFragment.startActivityForResult(intent, requestCode);
+        Fragment fragment = mFragment.get();
+        if (fragment != null) fragment.startActivityForResult(intent, requestCode);
     }
 
     @Override
     public boolean isShowRationalePermission(String permission) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return false;
-        return mFragment.shouldShowRequestPermissionRationale(permission);
+
+        Fragment fragment = mFragment.get();
+        return fragment != null && fragment.shouldShowRequestPermissionRationale(permission);
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        Fragment fragment = mFragment.get();
+        return fragment == null || fragment.isDetached() || fragment.getActivity() == null;
+    }
+
+    @Override
+    public void setOnDestroyListener(OnDestroyListener listener) {
+        if (mActivityWatcher != null) {
+            mActivityWatcher.stop();
+            mActivityWatcher = null;
+        }
+        if (mFragmentWatcher != null) {
+            mFragmentWatcher.stop();
+            mFragmentWatcher = null;
+        }
+        if (listener == null) return;
+
+        Fragment fragment = mFragment.get();
+        Activity activity = fragment == null ? null : fragment.getActivity();
+        if (activity == null || isDestroyed()) {
+            listener.onDestroy(false);
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            mFragmentWatcher = FragmentWatcher.watch(fragment, listener);
+        } else {
+            mActivityWatcher = ActivityWatcher.watch(activity, listener);
+        }
     }
-}
\ No newline at end of file
+}
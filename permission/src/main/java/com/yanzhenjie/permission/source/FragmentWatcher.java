@@ -0,0 +1,73 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.source;
+
+import android.app.Activity;
+import android.app.Fragment;
+import android.app.FragmentManager;
+import android.os.Build;
+
+import androidx.annotation.RequiresApi;
+
+import java.lang.ref.WeakReference;
+
+/**
+ * <p>Tells the listener when the fragment is destroyed or detached, it does not keep the fragment alive.</p>
+ */
+@RequiresApi(api = Build.VERSION_CODES.O)
+final class FragmentWatcher extends FragmentManager.FragmentLifecycleCallbacks {
+
+    static FragmentWatcher watch(Fragment fragment, Source.OnDestroyListener listener) {
+        FragmentWatcher watcher = new FragmentWatcher(fragment, listener);
+        watcher.mManager.registerFragmentLifecycleCallbacks(watcher, false);
+        return watcher;
+    }
+
+    private final FragmentManager mManager;
+    private final WeakReference<Fragment> mFragment;
+    private final WeakReference<Activity> mActivity;
+    private final Source.OnDestroyListener mListener;
+
+    private FragmentWatcher(Fragment fragment, Source.OnDestroyListener listener) {
+        this.mManager = fragment.getFragmentManager();
+        this.mFragment = new WeakReference<>(fragment);
+        this.mActivity = new WeakReference<>(fragment.getActivity());
+        this.mListener = listener;
+    }
+
+    void stop() {
+        mManager.unregisterFragmentLifecycleCallbacks(this);
+    }
+
+    @Override
+    public void onFragmentDestroyed(FragmentManager manager, Fragment fragment) {
+        onGone(fragment);
+    }
+
+    @Override
+    public void onFragmentDetached(FragmentManager manager, Fragment fragment) {
+        // A retained fragment is only detached from the activity which is recreated.
+        onGone(fragment);
+    }
+
+    private void onGone(Fragment fragment) {
+        if (fragment != mFragment.get()) return;
+
+        stop();
+        Activity activity = mActivity.get();
+        mListener.onDestroy(activity != null && activity.isChangingConfigurations());
+    }
+}
@@ -58,6 +58,22 @@ public abstract class Source {
 
     public abstract boolean isShowRationalePermission(String permission);
 
+    /**
+     * The host has been destroyed, nothing should be shown on it.
+     */
+    public boolean isDestroyed() {
+        return false;
+    }
+
+    /**
+     * Watch the destruction of the host, it's called on the main thread. The listener is called at once if the host
+     * has been destroyed.
+     *
+     * @param listener null to stop watching.
+     */
+    public void setOnDestroyListener(OnDestroyListener listener) {
+    }
+
     public int getTargetSdkVersion() {
         if (mTargetSdkVersion < Build.VERSION_CODES.ICE_CREAM_SANDWICH) {
             mTargetSdkVersion = getContext().getApplicationInfo().targetSdkVersion;
@@ -74,7 +90,7 @@ public abstract class Source {
 
     private PackageManager getPackageManager() {
         if (mPackageManager == null) {
-            mPackageManager = getContext().getPackageManager();
+            mPackageManager = getContext().getApplicationContext().getPackageManager();
         }
         return mPackageManager;
     }
@@ -82,14 +98,16 @@ public abstract class Source {
     @RequiresApi(api = Build.VERSION_CODES.KITKAT)
     private AppOpsManager getAppOpsManager() {
         if (mAppOpsManager == null) {
-            mAppOpsManager = (AppOpsManager) getContext().getSystemService(Context.APP_OPS_SERVICE);
+            Context context = getContext().getApplicationContext();
+            mAppOpsManager = (AppOpsManager) context.getSystemService(Context.APP_OPS_SERVICE);
         }
         return mAppOpsManager;
     }
 
     private NotificationManager getNotificationManager() {
         if (mNotificationManager == null) {
-            mNotificationManager = (NotificationManager) getContext().getSystemService(Context.NOTIFICATION_SERVICE);
+            Context context = getContext().getApplicationContext();
+            mNotificationManager = (NotificationManager) context.getSystemService(Context.NOTIFICATION_SERVICE);
         }
         return mNotificationManager;
     }
@@ -166,4 +184,14 @@ public abstract class Source {
             return true;
         }
     }
-}
\ No newline at end of file
+
+    public interface OnDestroyListener {
+
+        /**
+         * The host has been destroyed.
+         *
+         * @param changingConfigurations the host is recreated for a new configuration.
+         */
+        void onDestroy(boolean changingConfigurations);
+    }
+}
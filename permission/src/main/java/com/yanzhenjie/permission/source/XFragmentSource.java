@@ -15,11 +15,18 @@
  */
 package com.yanzhenjie.permission.source;
 
+import android.app.Activity;
 import android.content.Context;
 import android.content.Intent;
 import android.os.Build;
 
+import androidx.annotation.NonNull;
 import androidx.fragment.app.Fragment;
+import androidx.lifecycle.Lifecycle;
+import androidx.lifecycle.LifecycleEventObserver;
+import androidx.lifecycle.LifecycleOwner;
+
+import java.lang.ref.WeakReference;
 
 /**
  * <p>android.support.v4.app.Fragment Wrapper.</p>
@@ -27,30 +34,81 @@ import androidx.fragment.app.Fragment;
  */
 public class XFragmentSource extends Source {
 
-    private Fragment mFragment;
+    private final Context mApplicationContext;
+    private final WeakReference<Fragment> mFragment;
+    private DestroyObserver mObserver;
 
     public XFragmentSource(Fragment fragment) {
-        this.mFragment = fragment;
+        Context context = fragment.getContext();
+        this.mApplicationContext = context == null ? null : context.getApplicationContext();
+        this.mFragment = new WeakReference<>(fragment);
     }
 
     @Override
     public Context getContext() {
-        return mFragment.getContext();
+        Fragment fragment = mFragment.get();
+        Context context = fragment == null ? null : fragment.getContext();
+        return context != null ? context : mApplicationContext;
     }
 
     @Override
     public void startActivity(Intent intent) {
-        mFragment.startActivity(intent);
+        Fragment fragment = mFragment.get();
+        if (fragment != null) fragment.startActivity(intent);
     }
 
     @Override
     public void startActivityForResult(Intent intent, int requestCode) {
-        mFragment.startActivityForResult(intent, requestCode);
+        Fragment fragment = mFragment.get();
+        if (fragment != null) fragment.startActivityForResult(intent, requestCode);
     }
 
     @Override
     public boolean isShowRationalePermission(String permission) {
         if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) return false;
-        return mFragment.shouldShowRequestPermissionRationale(permission);
+
+        Fragment fragment = mFragment.get();
+        return fragment != null && fragment.shouldShowRequestPermissionRationale(permission);
+    }
+
+    @Override
+    public boolean isDestroyed() {
+        Fragment fragment = mFragment.get();
+        return fragment == null || fragment.getLifecycle().getCurrentState() == Lifecycle.State.DESTROYED;
+    }
+
+    @Override
+    public void setOnDestroyListener(OnDestroyListener listener) {
+        Fragment fragment = mFragment.get();
+        if (mObserver != null) {
+            if (fragment != null) fragment.getLifecycle().removeObserver(mObserver);
+            mObserver = null;
+        }
+        if (listener == null) return;
+
+        if (fragment == null || isDestroyed()) {
+            listener.onDestroy(false);
+            return;
+        }
+        mObserver = new DestroyObserver(listener);
+        fragment.getLifecycle().addObserver(mObserver);
+    }
+
+    private static final class DestroyObserver implements LifecycleEventObserver {
+
+        private final OnDestroyListener mListener;
+
+        private DestroyObserver(OnDestroyListener listener) {
+            this.mListener = listener;
+        }
+
+        @Override
+        public void onStateChanged(@NonNull LifecycleOwner source, @NonNull Lifecycle.Event event) {
+            if (event == Lifecycle.Event.ON_DESTROY) {
+                source.getLifecycle().removeObserver(this);
+                Activity activity = ((Fragment) source).getActivity();
+                mListener.onDestroy(activity != null && activity.isChangingConfigurations());
+            }
+        }
     }
-}
\ No newline at end of file
+}
@@ -15,32 +15,170 @@
  */
 package com.yanzhenjie.permission.task;
 
-import android.os.AsyncTask;
+import android.os.Handler;
+import android.os.Looper;
+import android.os.Message;
+
+import com.yanzhenjie.permission.Cancelable;
 
 import java.util.concurrent.Executor;
-import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
+ * <p>Runs {@link #doInBackground(Void...)} on the {@link Executor}, then {@link #onFinish(Object)} on the main thread,
+ * or {@link #onError(Throwable)} if it has thrown.</p>
  * Created by Zhenjie Yan on 2019-09-23.
  */
-public abstract class TaskExecutor<T> extends AsyncTask<Void, Void, T> {
+public abstract class TaskExecutor<T> implements Runnable, Cancelable {
 
-    private static Executor sExecutor = Executors.newSingleThreadExecutor();
+    private static final int CPU_COUNT = Runtime.getRuntime().availableProcessors();
+    private static final int POOL_SIZE = Math.max(2, Math.min(CPU_COUNT, 4));
+    private static final long KEEP_ALIVE_SECONDS = 30;
 
-    public TaskExecutor() {
+    private static final int STATE_PENDING = 0;
+    private static final int STATE_RUNNING = 1;
+    private static final int STATE_FINISHED = 2;
+    private static final int STATE_CANCELLED = 3;
+
+    private static final Executor DEFAULT_EXECUTOR;
+    private static final Handler MAIN_HANDLER = new MainHandler();
+
+    static {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(POOL_SIZE, POOL_SIZE, KEEP_ALIVE_SECONDS,
+            TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new TaskThreadFactory());
+        executor.allowCoreThreadTimeOut(true);
+        DEFAULT_EXECUTOR = executor;
     }
 
-    @Override
-    protected final void onPostExecute(T t) {
-        onFinish(t);
+    private static volatile Executor sExecutor = DEFAULT_EXECUTOR;
+
+    /**
+     * Set the {@link Executor} of the tasks, the default one runs a few tasks at the same time.
+     *
+     * @param executor null to restore the default one.
+     */
+    public static void setExecutor(Executor executor) {
+        sExecutor = executor == null ? DEFAULT_EXECUTOR : executor;
     }
 
+    private int mState = STATE_PENDING;
+    private boolean isExecuted;
+    private Thread mThread;
+    private T mResult;
+    private Throwable mError;
+
+    public TaskExecutor() {
+    }
+
+    protected abstract T doInBackground(Void... voids);
+
     protected abstract void onFinish(T t);
 
+    /**
+     * {@link #doInBackground(Void...)} has thrown, this is called on the main thread instead of
+     * {@link #onFinish(Object)}. The default one throws the exception again there.
+     */
+    protected void onError(Throwable e) {
+        if (e instanceof RuntimeException) throw (RuntimeException) e;
+        if (e instanceof Error) throw (Error) e;
+        throw new RuntimeException(e);
+    }
+
     /**
      * Just call this method.
      */
     public final void execute() {
-        executeOnExecutor(sExecutor);
+        execute(sExecutor);
+    }
+
+    /**
+     * Run this task on the executor.
+     */
+    public final void execute(Executor executor) {
+        synchronized (this) {
+            if (isExecuted) {
+                throw new IllegalStateException("The task has been executed.");
+            }
+            isExecuted = true;
+        }
+        executor.execute(this);
+    }
+
+    @Override
+    public final void run() {
+        synchronized (this) {
+            if (mState != STATE_PENDING) return;
+            mState = STATE_RUNNING;
+            mThread = Thread.currentThread();
+        }
+        try {
+            mResult = doInBackground();
+        } catch (Throwable e) {
+            mError = e;
+        } finally {
+            synchronized (this) {
+                mThread = null;
+                // The thread goes back to the executor, the interrupt of cancel() ends with this task.
+                Thread.interrupted();
+            }
+        }
+        MAIN_HANDLER.obtainMessage(0, this).sendToTarget();
+    }
+
+    private void finish() {
+        synchronized (this) {
+            if (mState != STATE_RUNNING) return;
+            mState = STATE_FINISHED;
+        }
+        if (mError != null) {
+            onError(mError);
+        } else {
+            onFinish(mResult);
+        }
+    }
+
+    /**
+     * Interrupt the running task, neither {@link #onFinish(Object)} nor {@link #onError(Throwable)} will be called.
+     */
+    @Override
+    public final void cancel() {
+        synchronized (this) {
+            if (mState == STATE_FINISHED || mState == STATE_CANCELLED) return;
+            mState = STATE_CANCELLED;
+            if (mThread != null) mThread.interrupt();
+        }
+    }
+
+    @Override
+    public final synchronized boolean isCancelled() {
+        return mState == STATE_CANCELLED;
+    }
+
+    private static final class MainHandler extends Handler {
+
+        private MainHandler() {
+            super(Looper.getMainLooper());
+        }
+
+        @Override
+        public void handleMessage(Message msg) {
+            ((TaskExecutor<?>) msg.obj).finish();
+        }
+    }
+
+    private static final class TaskThreadFactory implements ThreadFactory {
+
+        private final AtomicInteger mCount = new AtomicInteger(1);
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            Thread thread = new Thread(runnable, "AndPermission-Task-" + mCount.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,38 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.bridge;
+
+/**
+ * Answers the showing dialog the way {@link BridgeActivity} does, the activity can't be started in the unit tests.
+ */
+public final class FakeDialog {
+
+    /**
+     * Deliver the result of the platform to the round whose dialog is showing.
+     *
+     * @return false if no dialog is showing.
+     */
+    public static boolean answer(String[] permissions, int[] grantResults) {
+        RequestExecutor active = RequestManager.get().getActive();
+        if (active == null) return false;
+
+        active.onCallback(permissions, grantResults);
+        return true;
+    }
+
+    private FakeDialog() {
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.bridge;
+
+import org.junit.Test;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The dispatch benchmark of the in-process result bus. The system broadcast it replaces made two binder calls to
+ * register and unregister a receiver for each request, and its result went through the ActivityManagerService and
+ * the main looper before onReceive(), so it can't be measured on the JVM.
+ */
+public class MessengerTest {
+
+    private static final Executor DIRECT_EXECUTOR = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private static final int ROUNDS = 100000;
+
+    /**
+     * The average cost of register, send and dispatch must stay far below the broadcast.
+     */
+    private static final long MAX_ROUND_NANOS = TimeUnit.MICROSECONDS.toNanos(20);
+
+    @Test
+    public void resultIsDeliveredOnce() {
+        CountingCallback callback = new CountingCallback();
+        Messenger messenger = new Messenger(callback, DIRECT_EXECUTOR);
+        messenger.register("once");
+        assertTrue(Messenger.isRegistered("once"));
+
+        String[] permissions = new String[] {"android.permission.CAMERA"};
+        int[] grantResults = new int[] {0};
+        Messenger.send("once", permissions, grantResults);
+        Messenger.send("once", permissions, grantResults);
+
+        assertEquals(1, callback.mCount);
+        assertSame(permissions, callback.mPermissions);
+        assertSame(grantResults, callback.mGrantResults);
+        assertFalse(Messenger.isRegistered("once"));
+    }
+
+    @Test
+    public void unregisteredMessengerGetsNothing() {
+        CountingCallback callback = new CountingCallback();
+        Messenger messenger = new Messenger(callback, DIRECT_EXECUTOR);
+        messenger.register("gone");
+        messenger.unRegister();
+
+        Messenger.send("gone");
+        Messenger.send(null);
+
+        assertEquals(0, callback.mCount);
+        assertFalse(Messenger.isRegistered("gone"));
+    }
+
+    @Test
+    public void dispatchBenchmark() {
+        CountingCallback callback = new CountingCallback();
+        String[] permissions = new String[] {"android.permission.CAMERA"};
+        int[] grantResults = new int[] {0};
+        String[] suffixes = new String[ROUNDS];
+        for (int i = 0; i < ROUNDS; i++) {
+            suffixes[i] = "benchmark-" + i;
+        }
+
+        // Warm up, then measure.
+        for (int i = 0; i < ROUNDS; i++) {
+            new Messenger(callback, DIRECT_EXECUTOR).register(suffixes[i]);
+            Messenger.send(suffixes[i], permissions, grantResults);
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ROUNDS; i++) {
+            new Messenger(callback, DIRECT_EXECUTOR).register(suffixes[i]);
+            Messenger.send(suffixes[i], permissions, grantResults);
+        }
+        long average = (System.nanoTime() - start) / ROUNDS;
+
+        assertEquals(ROUNDS * 2, callback.mCount);
+        assertTrue("A round took " + average + "ns.", average < MAX_ROUND_NANOS);
+    }
+
+    private static class CountingCallback implements Messenger.Callback {
+
+        private int mCount;
+        private String[] mPermissions;
+        private int[] mGrantResults;
+
+        @Override
+        public void onCallback(String[] permissions, int[] grantResults) {
+            mCount++;
+            mPermissions = permissions;
+            mGrantResults = grantResults;
+        }
+    }
+}
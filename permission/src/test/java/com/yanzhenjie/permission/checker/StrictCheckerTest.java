@@ -0,0 +1,152 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.content.Context;
+import android.os.Build;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * The contention benchmark of the shared probes, N concurrent callers of one permission cost one probe.
+ */
+public class StrictCheckerTest {
+
+    private static final String PERMISSION = "com.example.permission.SLOW";
+    /**
+     * Its probe is given up while running, the other tests must not join it.
+     */
+    private static final String TIMEOUT_PERMISSION = "com.example.permission.TIMEOUT";
+    private static final long PROBE_TIME = 300;
+    private static final int CALLERS = 16;
+
+    /**
+     * The time of the JVM, the stub of SystemClock is frozen at 0 and no timeout would ever pass.
+     */
+    private static final StrictChecker.Clock NANO_CLOCK = new StrictChecker.Clock() {
+        @Override
+        public long elapsedRealtime() {
+            return TimeUnit.NANOSECONDS.toMillis(System.nanoTime());
+        }
+    };
+
+    private final AtomicInteger mRuns = new AtomicInteger();
+
+    @Before
+    public void setUp() {
+        // The strict checks run from Android 5.0, the level of the stubs is 0.
+        StrictChecker.setSdkInt(Build.VERSION_CODES.Q);
+        StrictChecker.setClock(NANO_CLOCK);
+        ProbeRegistry.Factory factory = new ProbeRegistry.Factory() {
+            @Override
+            public PermissionTest create() {
+                return new PermissionTest() {
+                    @Override
+                    public boolean test(Context context) throws Throwable {
+                        mRuns.incrementAndGet();
+                        Thread.sleep(PROBE_TIME);
+                        return true;
+                    }
+                };
+            }
+        };
+        ProbeRegistry.register(PERMISSION, factory);
+        ProbeRegistry.register(TIMEOUT_PERMISSION, factory);
+    }
+
+    @After
+    public void tearDown() {
+        ProbeRegistry.unregister(PERMISSION);
+        ProbeRegistry.unregister(TIMEOUT_PERMISSION);
+        StrictChecker.setProbeTimeout(StrictChecker.DEFAULT_PROBE_TIMEOUT);
+        StrictChecker.setClock(null);
+        StrictChecker.setSdkInt(Build.VERSION.SDK_INT);
+    }
+
+    @Test
+    public void concurrentCallersShareOneProbe() throws Exception {
+        final PermissionChecker checker = new StrictChecker();
+        final CountDownLatch ready = new CountDownLatch(CALLERS);
+        final CountDownLatch start = new CountDownLatch(1);
+        ExecutorService callers = Executors.newFixedThreadPool(CALLERS);
+        try {
+            List<Future<List<String>>> results = new ArrayList<>(CALLERS);
+            for (int i = 0; i < CALLERS; i++) {
+                results.add(callers.submit(new Callable<List<String>>() {
+                    @Override
+                    public List<String> call() throws Exception {
+                        ready.countDown();
+                        start.await();
+                        return checker.getDeniedPermissions(null, Collections.singletonList(PERMISSION));
+                    }
+                }));
+            }
+            ready.await();
+
+            long begin = StrictChecker.elapsedRealtime();
+            start.countDown();
+            for (Future<List<String>> result : results) {
+                assertTrue(result.get(10, TimeUnit.SECONDS).isEmpty());
+            }
+            long elapsed = StrictChecker.elapsedRealtime() - begin;
+
+            assertEquals(1, mRuns.get());
+            assertTrue("The callers took " + elapsed + "ms.", elapsed < PROBE_TIME * 2);
+        } finally {
+            callers.shutdownNow();
+        }
+    }
+
+    @Test
+    public void sequentialCallersProbeAgain() {
+        PermissionChecker checker = new StrictChecker();
+        assertTrue(checker.hasPermission(null, PERMISSION));
+        assertTrue(checker.hasPermission(null, PERMISSION));
+
+        assertEquals(2, mRuns.get());
+    }
+
+    @Test
+    public void slowProbeFallsBackAfterTheTimeout() {
+        long timeout = PROBE_TIME / 3;
+        StrictChecker.setProbeTimeout(timeout);
+        PermissionChecker checker = new StrictChecker();
+
+        long begin = StrictChecker.elapsedRealtime();
+        // The platform of the stubs grants everything.
+        assertTrue(checker.hasPermission(null, TIMEOUT_PERMISSION));
+        long elapsed = StrictChecker.elapsedRealtime() - begin;
+
+        assertEquals(1, mRuns.get());
+        assertTrue("The check took " + elapsed + "ms.", elapsed >= timeout && elapsed < PROBE_TIME);
+    }
+}
@@ -0,0 +1,283 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.runtime;
+
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+
+import com.yanzhenjie.permission.Action;
+import com.yanzhenjie.permission.bridge.FakeDialog;
+import com.yanzhenjie.permission.checker.PermissionChecker;
+import com.yanzhenjie.permission.source.Source;
+import com.yanzhenjie.permission.task.TaskExecutor;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class PermissionRequestTest {
+
+    private static final String[] ALL_PERMISSIONS = new String[] {Permission.READ_CALENDAR, Permission.WRITE_CALENDAR,
+        Permission.CAMERA, Permission.READ_CONTACTS, Permission.WRITE_CONTACTS, Permission.GET_ACCOUNTS,
+        Permission.ACCESS_FINE_LOCATION, Permission.ACCESS_COARSE_LOCATION, Permission.ACCESS_BACKGROUND_LOCATION,
+        Permission.RECORD_AUDIO, Permission.READ_PHONE_STATE, Permission.CALL_PHONE, Permission.ADD_VOICEMAIL,
+        Permission.USE_SIP, Permission.READ_PHONE_NUMBERS, Permission.ANSWER_PHONE_CALLS, Permission.READ_CALL_LOG,
+        Permission.WRITE_CALL_LOG, Permission.PROCESS_OUTGOING_CALLS, Permission.BODY_SENSORS,
+        Permission.ACTIVITY_RECOGNITION, Permission.SEND_SMS, Permission.RECEIVE_SMS, Permission.READ_SMS,
+        Permission.RECEIVE_WAP_PUSH, Permission.RECEIVE_MMS, Permission.READ_EXTERNAL_STORAGE,
+        Permission.WRITE_EXTERNAL_STORAGE};
+
+    /**
+     * What a permission costs between start() and the verification: the entry in the round of the dialog, its
+     * reference in the list for the checker, in the list for the bridge and in the array for the dialog. A copy of the
+     * permissions into another set or list on the way shows up over this.
+     */
+    private static final long MAX_PERMISSION_BYTES = 96;
+    private static final int ROUNDS = 10000;
+
+    private final RecordingExecutor mTasks = new RecordingExecutor();
+
+    @Before
+    public void setUp() {
+        // Every permission is supported on Android 10, the level of the stubs is 0.
+        PermissionTable.setSdkInt(Build.VERSION_CODES.Q);
+        TaskExecutor.setExecutor(mTasks);
+    }
+
+    @After
+    public void tearDown() {
+        TaskExecutor.setExecutor(null);
+        PermissionTable.setSdkInt(Build.VERSION.SDK_INT);
+    }
+
+    @Test
+    public void cancelReleasesTheSourceOfMRequest() {
+        FakeSource source = new FakeSource();
+        WeakReference<Source> reference = new WeakReference<Source>(source);
+        PermissionRequest request = new MRequest(source).permission(Permission.CAMERA)
+            .onGranted(new SourceAction(source))
+            .onDenied(new SourceAction(source));
+        source = null;
+
+        request.cancel();
+
+        assertCollected(reference);
+        assertNotNull(request);
+    }
+
+    @Test
+    public void cancelReleasesTheSourceOfLRequest() {
+        FakeSource source = new FakeSource();
+        WeakReference<Source> reference = new WeakReference<Source>(source);
+        PermissionRequest request = new LRequest(source).permission(Permission.CAMERA)
+            .onGranted(new SourceAction(source))
+            .onDenied(new SourceAction(source));
+        source = null;
+
+        request.cancel();
+
+        assertCollected(reference);
+        assertNotNull(request);
+    }
+
+    @Test
+    public void startAfterCancelDoesNothing() {
+        FakeSource source = new FakeSource();
+        SourceAction granted = new SourceAction(source);
+        SourceAction denied = new SourceAction(source);
+        PermissionRequest request = new MRequest(source).permission(Permission.CAMERA)
+            .onGranted(granted)
+            .onDenied(denied);
+
+        request.cancel();
+        request.start();
+        request.cancel();
+
+        assertNull(source.mListener);
+        assertFalse(granted.isInvoked);
+        assertFalse(denied.isInvoked);
+    }
+
+    @Test
+    public void startAsksTheDialogAndVerifiesTheAnswer() {
+        FakeSource source = new FakeSource();
+        DenyingChecker checker = new DenyingChecker();
+        String[] permissions = new String[] {Permission.CAMERA, Permission.RECORD_AUDIO};
+        PermissionRequest request = new MRequest(source, checker).permission(permissions);
+
+        request.start();
+        assertEquals(permissions.length, checker.mChecked);
+        assertNotNull(source.mListener);
+        assertTrue(FakeDialog.answer(permissions,
+            new int[] {PackageManager.PERMISSION_GRANTED, PackageManager.PERMISSION_DENIED}));
+
+        // The round is finished, the verification of the answer is waiting for its turn.
+        assertFalse(FakeDialog.answer(permissions, new int[2]));
+        assertEquals(1, mTasks.mTasks.size());
+
+        request.cancel();
+        assertTrue(((TaskExecutor<?>) mTasks.mTasks.get(0)).isCancelled());
+        assertNull(source.mListener);
+    }
+
+    @Test
+    public void startToCallbackDoesNotCopyThePermissions() {
+        com.sun.management.ThreadMXBean bean = PermissionSetTest.getThreadBean();
+        String[] one = new String[] {Permission.CAMERA};
+
+        long oneBytes = measure(bean, one);
+        long allBytes = measure(bean, ALL_PERMISSIONS);
+        long permissionBytes = (allBytes - oneBytes) / (ALL_PERMISSIONS.length - one.length);
+
+        assertTrue("A permission allocated " + permissionBytes + " bytes.", permissionBytes <= MAX_PERMISSION_BYTES);
+    }
+
+    /**
+     * Get the bytes of one round from start() to the bridge callback, after a warm-up.
+     */
+    private long measure(com.sun.management.ThreadMXBean bean, String[] permissions) {
+        FakeSource source = new FakeSource();
+        DenyingChecker checker = new DenyingChecker();
+        int[] grantResults = new int[permissions.length];
+        for (int i = 0; i < ROUNDS; i++) {
+            round(source, checker, permissions, grantResults);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            round(source, checker, permissions, grantResults);
+        }
+        long bytes = bean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(ROUNDS * 2 * permissions.length, checker.mChecked);
+        return bytes / ROUNDS;
+    }
+
+    private void round(Source source, PermissionChecker checker, String[] permissions, int[] grantResults) {
+        PermissionRequest request = new MRequest(source, checker).permission(permissions);
+        request.start();
+        FakeDialog.answer(permissions, grantResults);
+        request.cancel();
+        mTasks.mTasks.clear();
+    }
+
+    private static void assertCollected(WeakReference<?> reference) {
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            System.runFinalization();
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        assertNull("The source is still referenced after cancel().", reference.get());
+    }
+
+    private static class SourceAction implements Action<List<String>> {
+
+        private final Source mSource;
+        private boolean isInvoked;
+
+        private SourceAction(Source source) {
+            this.mSource = source;
+        }
+
+        @Override
+        public void onAction(List<String> data) {
+            assertNotNull(mSource);
+            isInvoked = true;
+        }
+    }
+
+    /**
+     * The platform has granted none of the permissions, all of them are asked in the dialog.
+     */
+    private static class DenyingChecker implements PermissionChecker {
+
+        private int mChecked;
+
+        @Override
+        public boolean hasPermission(Context context, String... permissions) {
+            return hasPermission(context, Arrays.asList(permissions));
+        }
+
+        @Override
+        public boolean hasPermission(Context context, List<String> permissions) {
+            return getDeniedPermissions(context, permissions).isEmpty();
+        }
+
+        @Override
+        public List<String> getDeniedPermissions(Context context, List<String> permissions) {
+            mChecked += permissions.size();
+            return permissions;
+        }
+    }
+
+    private static class RecordingExecutor implements Executor {
+
+        private final List<Runnable> mTasks = new ArrayList<>();
+
+        @Override
+        public void execute(Runnable command) {
+            mTasks.add(command);
+        }
+    }
+
+    private static class FakeSource extends Source {
+
+        private OnDestroyListener mListener;
+
+        @Override
+        public Context getContext() {
+            return null;
+        }
+
+        @Override
+        public void startActivity(Intent intent) {
+        }
+
+        @Override
+        public void startActivityForResult(Intent intent, int requestCode) {
+        }
+
+        @Override
+        public boolean isShowRationalePermission(String permission) {
+            return false;
+        }
+
+        @Override
+        public void setOnDestroyListener(OnDestroyListener listener) {
+            mListener = listener;
+        }
+    }
+}
@@ -0,0 +1,129 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.runtime;
+
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PermissionSetTest {
+
+    private static final String EXTRA = "com.example.permission.EXTRA";
+
+    /**
+     * The header, the mask and the reference of the extras, with some room for the padding of the VM.
+     */
+    private static final long MAX_SET_BYTES = 40;
+    private static final int ROUNDS = 100000;
+
+    @Test
+    public void setAlgebra() {
+        PermissionSet a = PermissionSet.of(Permission.CAMERA, Permission.READ_CONTACTS, EXTRA);
+        PermissionSet b = PermissionSet.of(Permission.READ_CONTACTS, Permission.RECORD_AUDIO);
+
+        assertEquals(Arrays.asList(Permission.CAMERA, Permission.READ_CONTACTS, Permission.RECORD_AUDIO, EXTRA),
+            a.union(b).toList());
+        assertEquals(Arrays.asList(Permission.CAMERA, EXTRA), a.minus(b).toList());
+        assertEquals(Arrays.asList(Permission.READ_CONTACTS), a.intersect(b).toList());
+        assertEquals(3, a.size());
+        assertTrue(a.contains(EXTRA));
+        assertFalse(b.contains(EXTRA));
+        assertSame(PermissionSet.EMPTY, new PermissionSet.Builder().build());
+    }
+
+    @Test
+    public void unchangedResultsAreNotCopied() {
+        PermissionSet a = PermissionSet.of(Permission.CAMERA, Permission.READ_CONTACTS);
+        PermissionSet b = PermissionSet.of(Permission.READ_CONTACTS);
+
+        assertSame(a, a.union(b));
+        assertSame(a, a.union(PermissionSet.EMPTY));
+        assertSame(a, a.minus(PermissionSet.EMPTY));
+        assertSame(b, b.intersect(a));
+        assertSame(PermissionSet.EMPTY, b.minus(a));
+    }
+
+    @Test
+    public void setAlgebraAllocatesOnlyTheResult() {
+        com.sun.management.ThreadMXBean bean = getThreadBean();
+        PermissionSet requested = PermissionSet.of(Permission.CAMERA, Permission.READ_CONTACTS,
+            Permission.RECORD_AUDIO, Permission.READ_SMS);
+        PermissionSet granted = PermissionSet.of(Permission.READ_CONTACTS, Permission.READ_SMS);
+        PermissionSet denied = PermissionSet.of(Permission.RECORD_AUDIO);
+
+        int sink = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += requested.minus(granted).union(denied).intersect(requested).size();
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += requested.minus(granted).union(denied).intersect(requested).size();
+        }
+        long bytes = bean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(ROUNDS * 4, sink);
+        // The minus creates one set, the union and the intersect return it unchanged.
+        assertTrue("Allocated " + bytes + " bytes.", bytes <= ROUNDS * MAX_SET_BYTES);
+    }
+
+    @Test
+    public void iterationDoesNotBuildAList() {
+        com.sun.management.ThreadMXBean bean = getThreadBean();
+        PermissionSet set = PermissionSet.of(Permission.CAMERA, Permission.READ_CONTACTS, Permission.RECORD_AUDIO);
+
+        int sink = 0;
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += count(set);
+        }
+
+        long threadId = Thread.currentThread().getId();
+        long before = bean.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ROUNDS; i++) {
+            sink += count(set);
+        }
+        long bytes = bean.getThreadAllocatedBytes(threadId) - before;
+
+        assertEquals(ROUNDS * 6, sink);
+        // One iterator at most, a list of the names would cost several times more.
+        assertTrue("Allocated " + bytes + " bytes.", bytes <= ROUNDS * MAX_SET_BYTES);
+    }
+
+    private static int count(PermissionSet set) {
+        int count = 0;
+        for (String permission : set) {
+            if (permission != null) count++;
+        }
+        return count;
+    }
+
+    static com.sun.management.ThreadMXBean getThreadBean() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        Assume.assumeTrue(bean instanceof com.sun.management.ThreadMXBean);
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        Assume.assumeTrue(sunBean.isThreadAllocatedMemorySupported());
+        sunBean.setThreadAllocatedMemoryEnabled(true);
+        return sunBean;
+    }
+}
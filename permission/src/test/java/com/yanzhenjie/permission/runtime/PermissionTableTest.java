@@ -0,0 +1,126 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.runtime;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PermissionTableTest {
+
+    private static final String SOURCE_DIR = "src/main/java/com/yanzhenjie/permission/runtime/";
+
+    @Test
+    public void everyPermissionHasItsOwnId() throws Exception {
+        Map<String, String> constants = getConstants(Permission.class, String.class);
+        assertEquals(PermissionTable.COUNT, constants.size());
+
+        Set<Integer> ids = new HashSet<>();
+        for (String permission : constants.values()) {
+            int id = PermissionTable.idOf(permission);
+            assertNotEquals(permission, PermissionTable.UNKNOWN, id);
+            assertTrue(permission, id >= 0 && id < PermissionTable.COUNT);
+            assertEquals(permission, PermissionTable.getName(id));
+            assertTrue(permission, ids.add(id));
+        }
+        assertEquals(PermissionTable.UNKNOWN, PermissionTable.idOf("android.permission.INTERNET"));
+    }
+
+    @Test
+    public void idsAreNamedAfterThePermissions() throws Exception {
+        Map<String, String> constants = getConstants(Permission.class, String.class);
+        for (Map.Entry<String, String> entry : constants.entrySet()) {
+            int id = PermissionTable.class.getField(entry.getKey()).getInt(null);
+            assertEquals(entry.getKey(), entry.getValue(), PermissionTable.getName(id));
+        }
+    }
+
+    @Test
+    public void permissionDefListsEveryPermission() throws IOException {
+        String text = read(new File(SOURCE_DIR + "PermissionDef.java"));
+        Set<String> listed = new TreeSet<>();
+        Matcher matcher = Pattern.compile("Permission\\.([A-Z_]+)").matcher(text);
+        while (matcher.find()) {
+            assertTrue(matcher.group(1), listed.add(matcher.group(1)));
+        }
+        assertEquals(getConstants(Permission.class, String.class).keySet(), listed);
+    }
+
+    @Test
+    public void groupsMatchPermissionGroup() throws Exception {
+        Map<String, String[]> groups = getConstants(Permission.Group.class, String[].class);
+        assertEquals(PermissionTable.GROUP_COUNT, groups.size());
+
+        Set<Integer> groupIds = new HashSet<>();
+        Set<String> grouped = new HashSet<>();
+        for (Map.Entry<String, String[]> entry : groups.entrySet()) {
+            int group = PermissionTable.class.getField("GROUP_" + entry.getKey()).getInt(null);
+            assertTrue(entry.getKey(), groupIds.add(group));
+            for (String permission : entry.getValue()) {
+                assertEquals(permission, group, PermissionTable.getGroup(PermissionTable.idOf(permission)));
+                assertTrue(permission, grouped.add(permission));
+            }
+        }
+        assertEquals(new HashSet<>(getConstants(Permission.class, String.class).values()), grouped);
+    }
+
+    @Test
+    public void manifestIndexBundlesEveryPermission() throws Exception {
+        String text = read(new File("manifest-index.gradle"));
+        int start = text.indexOf("def permissionConstants");
+        int end = text.indexOf("def permissionGroups");
+        assertTrue(start >= 0 && end > start);
+
+        Map<String, String> bundled = new TreeMap<>();
+        Matcher matcher = Pattern.compile("([A-Z_]+)\\s*:\\s*'([^']+)'").matcher(text.substring(start, end));
+        while (matcher.find()) {
+            bundled.put(matcher.group(1), matcher.group(2));
+        }
+        assertEquals(new TreeMap<>(getConstants(Permission.class, String.class)), bundled);
+    }
+
+    private static <T> Map<String, T> getConstants(Class<?> clazz, Class<T> type) throws IllegalAccessException {
+        Map<String, T> constants = new HashMap<>();
+        for (Field field : clazz.getDeclaredFields()) {
+            int modifiers = field.getModifiers();
+            if (Modifier.isPublic(modifiers) && Modifier.isStatic(modifiers) && field.getType() == type) {
+                constants.put(field.getName(), type.cast(field.get(null)));
+            }
+        }
+        return constants;
+    }
+
+    private static String read(File file) throws IOException {
+        return new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * Copyright 2019 Zhenjie Yan
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.yanzhenjie.permission.checker;
+
+import android.content.Context;
+import android.os.Build;
+import android.os.SystemClock;
+
+import java.util.Locale;
+
+/**
+ * <p>Times the camera probes of the library, the Camera2 open against the legacy preview. It lives in the package
+ * of the probes to reach them, run it off the main thread with the camera permission granted.</p>
+ */
+public final class CameraProbeBenchmark {
+
+    /**
+     * Run each probe the given times, alternately, after one untimed warm-up.
+     *
+     * @return the report.
+     */
+    public static String run(Context context, int rounds) {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.LOLLIPOP) {
+            return "Camera2 needs Android 5.0.";
+        }
+        PermissionTest camera2 = new Camera2Test();
+        PermissionTest legacy = new CameraTest();
+
+        Timing camera2Timing = new Timing("Camera2");
+        Timing legacyTiming = new Timing("Legacy");
+        camera2Timing.measure(context, camera2);
+        legacyTiming.measure(context, legacy);
+        camera2Timing.reset();
+        legacyTiming.reset();
+
+        for (int i = 0; i < rounds; i++) {
+            camera2Timing.measure(context, camera2);
+            legacyTiming.measure(context, legacy);
+        }
+        return camera2Timing + "\n" + legacyTiming;
+    }
+
+    private static final class Timing {
+
+        private final String mName;
+        private int mCount;
+        private int mGranted;
+        private int mErrors;
+        private long mTotal;
+        private long mMin = Long.MAX_VALUE;
+        private long mMax;
+
+        private Timing(String name) {
+            this.mName = name;
+        }
+
+        void measure(Context context, PermissionTest test) {
+            long start = SystemClock.elapsedRealtime();
+            try {
+                if (test.test(context)) mGranted++;
+            } catch (Throwable e) {
+                mErrors++;
+            }
+            long time = SystemClock.elapsedRealtime() - start;
+            mCount++;
+            mTotal += time;
+            mMin = Math.min(mMin, time);
+            mMax = Math.max(mMax, time);
+        }
+
+        void reset() {
+            mCount = 0;
+            mGranted = 0;
+            mErrors = 0;
+            mTotal = 0;
+            mMin = Long.MAX_VALUE;
+            mMax = 0;
+        }
+
+        @Override
+        public String toString() {
+            if (mCount == 0) return mName + ": no run.";
+            return String.format(Locale.US, "%s: avg %dms, min %dms, max %dms, granted %d/%d, errors %d.", mName,
+                mTotal / mCount, mMin, mMax, mGranted, mCount, mErrors);
+        }
+    }
+
+    private CameraProbeBenchmark() {
+    }
+}
@@ -35,10 +35,12 @@ import androidx.appcompat.widget.Toolbar;
 
 import com.yanzhenjie.permission.Action;
 import com.yanzhenjie.permission.AndPermission;
+import com.yanzhenjie.permission.checker.CameraProbeBenchmark;
 import com.yanzhenjie.permission.runtime.Permission;
 import com.yanzhenjie.permission.runtime.PermissionDef;
 import com.yanzhenjie.permission.sample.R;
 import com.yanzhenjie.permission.sample.RuntimeRationale;
+import com.yanzhenjie.permission.task.TaskExecutor;
 
 import java.util.List;
 
@@ -48,6 +50,7 @@ import java.util.List;
 public class MainActivity extends AppCompatActivity implements View.OnClickListener {
 
     private static final int REQUEST_CODE_SETTING = 1;
+    private static final int BENCHMARK_ROUNDS = 10;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
@@ -68,6 +71,7 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
         findViewById(R.id.btn_request_activity_recognition).setOnClickListener(this);
         findViewById(R.id.btn_request_sms).setOnClickListener(this);
         findViewById(R.id.btn_setting).setOnClickListener(this);
+        findViewById(R.id.btn_benchmark_camera).setOnClickListener(this);
     }
 
     @Override
@@ -313,9 +317,42 @@ public class MainActivity extends AppCompatActivity implements View.OnClickListe
                 setPermission();
                 break;
             }
+            case R.id.btn_benchmark_camera: {
+                benchmarkCamera();
+                break;
+            }
         }
     }
 
+    /**
+     * Compare the Camera2 probe with the legacy one, the camera permission should be granted first.
+     */
+    private void benchmarkCamera() {
+        toast(R.string.message_benchmark_running);
+        final Context context = getApplicationContext();
+        new TaskExecutor<String>() {
+            @Override
+            protected String doInBackground(Void... voids) {
+                return CameraProbeBenchmark.run(context, BENCHMARK_ROUNDS);
+            }
+
+            @Override
+            protected void onFinish(String report) {
+                if (isFinishing()) return;
+
+                new AlertDialog.Builder(MainActivity.this).setTitle(R.string.benchmark_camera)
+                        .setMessage(report)
+                        .setPositiveButton(R.string.ok, null)
+                        .show();
+            }
+
+            @Override
+            protected void onError(Throwable e) {
+                onFinish(e.toString());
+            }
+        }.execute();
+    }
+
     /**
      * Request permissions.
      */